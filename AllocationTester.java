@@ -0,0 +1,86 @@
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+/**
+   AllocationTester -- checks that playing a game on reused MineField and VisibleField objects allocates nothing:
+   resetGameDisplay, populateMineField, uncover, chord, cycleGuess, getStatus and clearChangedCells, on an expert
+   board and on a big sparse one (big flood fills).  After some warm-up games (so the JIT has compiled the code),
+   it counts the bytes allocated by this thread (com.sun.management.ThreadMXBean.getThreadAllocatedBytes) while
+   playing many more games.  It exits with status 1 if anything was allocated on any board, so it can be used as a
+   check in a build.
+ */
+
+public class AllocationTester {
+
+   private static final int WARMUP_GAMES = 10000;
+   private static final int MEASURED_GAMES = 2000;
+
+   private static long sink = 0;     // the statuses read, so reading them can't be optimised away
+
+
+   public static void main(String[] args) {
+
+      com.sun.management.ThreadMXBean threads =
+         (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long thread = Thread.currentThread().getId();
+
+      int[][] boards = {{16, 30, 99}, {256, 256, 3000}};
+      boolean passed = true;
+      for (int[] board : boards) {
+         MineField mineField = new MineField(board[0], board[1], board[2]);
+         mineField.setRandomGenerator(new SplittableRandom(board[2]));
+         VisibleField field = new VisibleField(mineField);
+         SplittableRandom random = new SplittableRandom(1);
+         int numGames = WARMUP_GAMES * 480 / (board[0] * board[1]);
+
+         playGames(field, random, numGames);
+         long overhead = threads.getThreadAllocatedBytes(thread);
+         overhead = threads.getThreadAllocatedBytes(thread) - overhead;   // what measuring allocates, if anything
+         long before = threads.getThreadAllocatedBytes(thread);
+         long moves = playGames(field, random, MEASURED_GAMES);
+         long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+         System.out.println(board[0] + "x" + board[1] + "/" + board[2] + ", " + moves + " moves:");
+         System.out.println("Expected allocated bytes: 0, Actual: " + allocated + ".");
+         passed &= (allocated == 0);
+      }
+      if (!passed) {
+         System.exit(1);
+      }
+   }
+
+
+   /**
+      Plays numGames games on field with random moves (an uncover, a cycleGuess and a chord per turn, reading every
+      status changed), and returns the number of moves made.
+    */
+   private static long playGames(VisibleField field, SplittableRandom random, int numGames) {
+
+      MineField mineField = field.getMineField();
+      int numRows = mineField.numRows();
+      int numCols = mineField.numCols();
+      long moves = 0;
+      for (int game = 0; game < numGames; game++) {
+         field.resetGameDisplay();
+         mineField.populateMineField(numRows / 2, numCols / 2);
+         field.uncover(numRows / 2, numCols / 2);
+         moves++;
+         while (!field.isGameOver()) {
+            int row = random.nextInt(numRows);
+            int col = random.nextInt(numCols);
+            if (field.getStatus(row, col) == VisibleField.COVERED) {
+               field.uncover(row, col);
+            }
+            field.cycleGuess(random.nextInt(numRows), random.nextInt(numCols));
+            field.chord(random.nextInt(numRows), random.nextInt(numCols));
+            moves += 3;
+            for (int cell = field.nextChangedCell(0); cell >= 0; cell = field.nextChangedCell(cell + 1)) {
+               sink += field.getStatus(cell / numCols, cell % numCols);
+            }
+            field.clearChangedCells();
+         }
+      }
+      return moves;
+   }
+
+}
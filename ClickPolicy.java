@@ -0,0 +1,27 @@
+import java.util.random.RandomGenerator;
+
+/**
+ *  ClickPolicy
+ *  A strategy for playing a game without the GUI (see SimulationRunner): given the visible field, it chooses the next
+ *  square to uncover, the way a player would click on it.  A policy may also mark squares with cycleGuess before
+ *  choosing, but must not uncover anything itself.
+ *
+ *  SimulationRunner creates one policy per worker thread, so an implementation can keep state between moves and
+ *  games without any locking.
+ */
+
+public interface ClickPolicy {
+
+   /**
+    *  Chooses the next square to uncover.  For the first move of a random game the minefield has no mines yet;
+    *  they are placed after this returns, away from the chosen square.
+    *
+    *  @param field  the game being played
+    *  @param random  the generator to use for any random choice (so a game can be played again from its seed)
+    *  @return the square to uncover, as row * numCols + col
+    *  PRE: !field.isGameOver()
+    *  POST: the returned square is covered and not a MINE_GUESS
+    */
+   int nextMove(VisibleField field, RandomGenerator random);
+
+}
@@ -0,0 +1,477 @@
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ *  ConcurrentVisibleField
+ *  A thread-safe game: a VisibleField (and its MineField) that a game thread can play while any number of other
+ *  threads (e.g., spectators on a server) read it.  VisibleField and MineField themselves are not synchronized, so
+ *  once wrapped, the game must only be used through this object.
+ *
+ *  Every game has its own StampedLock and nothing is shared between games, so thousands of games can be played at
+ *  once with no contention between them.
+ *  - Moves (uncover, chord, cycleGuess, uncoverAll, resetGameDisplay, update) take the write lock, so the moves on
+ *    one game are applied one at a time, whichever threads make them.
+ *  - Reads (getStatus, numMinesLeft, isGameOver, snapshot, ...) are optimistic.  They read the game without locking,
+ *    then check that no move was made meanwhile.  Only if one was do they read again under the read lock.  So readers
+ *    never block each other, and they never slow the game thread down, unless they happen to read during a move.
+ *
+ *  Every move counts as a new version of the game (version()), so a spectator can poll it cheaply and only take a
+ *  snapshot() (a consistent copy of the whole board) when it changed.  ConcurrentVisibleFieldTester is the stress
+ *  test that checks all this.
+ */
+
+public class ConcurrentVisibleField {
+
+   private static final int OPTIMISTIC_SNAPSHOT_TRIES = 2;   //then snapshot takes the read lock.
+
+   private final VisibleField field;
+   private final MineField mineField;
+   private final boolean randomMines;
+   private final int numRows;
+   private final int numCols;
+   private final StampedLock lock = new StampedLock();
+   private long version = 0;         //number of moves made, only written under the write lock.
+
+
+   /**
+    *  Wraps a game.  If randomMines is true, the minefield is a random one (3-arg constructor) and its mines are
+    *  placed by the first uncover of each game, away from the square opened, like GameBoardPanel does.
+    *
+    *  @param field  the game, which mustn't be used directly anymore (nor its minefield)
+    *  @param randomMines  whether the mines are placed on the first uncover
+    */
+   public ConcurrentVisibleField(VisibleField field, boolean randomMines) {
+
+      this.field = field;
+      this.mineField = field.getMineField();
+      this.randomMines = randomMines;
+      this.numRows = mineField.numRows();
+      this.numCols = mineField.numCols();
+   }
+
+
+   /**
+    *  Returns the number of rows of the game.
+    *
+    *  @return the number of rows
+    */
+   public int numRows() {
+
+      return numRows;
+   }
+
+
+   /**
+    *  Returns the number of columns of the game.
+    *
+    *  @return the number of columns
+    */
+   public int numCols() {
+
+      return numCols;
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // MOVES (under the write lock)
+
+   /**
+    *  Same as VisibleField.resetGameDisplay.
+    */
+   public void resetGameDisplay() {
+
+      long stamp = lock.writeLock();
+      try {
+         field.resetGameDisplay();
+         version++;
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   /**
+    *  Same as VisibleField.cycleGuess.
+    *
+    *  @param row  row of the square
+    *  @param col  col of the square
+    *  PRE: 0 <= row < numRows() and 0 <= col < numCols()
+    */
+   public void cycleGuess(int row, int col) {
+
+      long stamp = lock.writeLock();
+      try {
+         field.cycleGuess(row, col);
+         version++;
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   /**
+    *  Same as VisibleField.uncover.  With random mines, the first uncover of a game places them first
+    *  (populateMineField(row, col)).  Both happen as one move, so the mines are placed once even if several threads
+    *  race to make the first move.
+    *
+    *  @param row  row of the square
+    *  @param col  col of the square
+    *  @return false iff the square uncovered was a mine
+    *  PRE: 0 <= row < numRows() and 0 <= col < numCols()
+    */
+   public boolean uncover(int row, int col) {
+
+      long stamp = lock.writeLock();
+      try {
+         if (randomMines && mineField.numMineLocations() == 0) {
+            mineField.populateMineField(row, col);
+         }
+         boolean isNotAMine = field.uncover(row, col);
+         version++;
+         return isNotAMine;
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   /**
+    *  Same as VisibleField.chord.
+    *
+    *  @param row  row of the square
+    *  @param col  col of the square
+    *  @return false iff a mine was uncovered
+    *  PRE: 0 <= row < numRows() and 0 <= col < numCols()
+    */
+   public boolean chord(int row, int col) {
+
+      long stamp = lock.writeLock();
+      try {
+         boolean isNotAMine = field.chord(row, col);
+         version++;
+         return isNotAMine;
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   /**
+    *  Same as VisibleField.uncoverAll (the mines must already be placed).
+    *
+    *  @param cells  the squares to uncover, as row * numCols() + col
+    *  @return false iff a mine was uncovered
+    */
+   public boolean uncoverAll(int[] cells) {
+
+      long stamp = lock.writeLock();
+      try {
+         boolean isNotAMine = field.uncoverAll(cells);
+         version++;
+         return isNotAMine;
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   /**
+    *  Gives every square whose status changed since the last call (see VisibleField.nextChangedCell) to action, as
+    *  row * numCols() + col, then forgets them.  It's meant for the one view that redraws the board after each move;
+    *  spectators should compare versions instead.  action runs under the write lock, so it should be quick and must
+    *  not use this game.
+    *
+    *  @param action  what to do with each changed square
+    */
+   public void drainChangedCells(IntConsumer action) {
+
+      long stamp = lock.writeLock();
+      try {
+         for (int cell = field.nextChangedCell(0); cell >= 0; cell = field.nextChangedCell(cell + 1)) {
+            action.accept(cell);
+         }
+         field.clearChangedCells();
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   /**
+    *  Runs any other change to the game (e.g., setJournal, or MineField.setNoGuess) as one move, under the write lock.
+    *  The game must not be kept, or used, after update returns.
+    *
+    *  @param change  what to do to the game
+    */
+   public void update(Consumer<VisibleField> change) {
+
+      long stamp = lock.writeLock();
+      try {
+         change.accept(field);
+         version++;
+      }
+      finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // READS (optimistic, then under the read lock if a move got in the way)
+   // A read made during a move may see the game half updated, but can't fail: the status array and the dimensions
+   // never change.  Its result is only used once validate says no move happened.
+
+   /**
+    *  Returns the number of moves made on this game since it was wrapped.  It only increases.
+    *
+    *  @return the version of the game
+    */
+   public long version() {
+
+      long stamp = lock.tryOptimisticRead();
+      long result = version;
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            result = version;
+         }
+         finally {
+            lock.unlockRead(stamp);
+         }
+      }
+      return result;
+   }
+
+
+   /**
+    *  Same as VisibleField.getStatus.
+    *
+    *  @param row  row of the square
+    *  @param col  col of the square
+    *  @return the status of the square
+    *  PRE: 0 <= row < numRows() and 0 <= col < numCols()
+    */
+   public int getStatus(int row, int col) {
+
+      long stamp = lock.tryOptimisticRead();
+      int result = field.getStatus(row, col);
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            result = field.getStatus(row, col);
+         }
+         finally {
+            lock.unlockRead(stamp);
+         }
+      }
+      return result;
+   }
+
+
+   /**
+    *  Same as VisibleField.isUncovered.
+    *
+    *  @param row  row of the square
+    *  @param col  col of the square
+    *  @return whether the square is uncovered
+    *  PRE: 0 <= row < numRows() and 0 <= col < numCols()
+    */
+   public boolean isUncovered(int row, int col) {
+
+      return getStatus(row, col) >= 0;
+   }
+
+
+   /**
+    *  Same as VisibleField.numMinesLeft.
+    *
+    *  @return the number of mines left to guess
+    */
+   public int numMinesLeft() {
+
+      long stamp = lock.tryOptimisticRead();
+      int result = field.numMinesLeft();
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            result = field.numMinesLeft();
+         }
+         finally {
+            lock.unlockRead(stamp);
+         }
+      }
+      return result;
+   }
+
+
+   /**
+    *  Same as VisibleField.isGameOver.
+    *
+    *  @return whether the game has ended
+    */
+   public boolean isGameOver() {
+
+      long stamp = lock.tryOptimisticRead();
+      boolean result = field.isGameOver();
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            result = field.isGameOver();
+         }
+         finally {
+            lock.unlockRead(stamp);
+         }
+      }
+      return result;
+   }
+
+
+   /**
+    *  Same as VisibleField.numCoveredSquares.
+    *
+    *  @return the number of covered squares
+    */
+   public int numCoveredSquares() {
+
+      long stamp = lock.tryOptimisticRead();
+      int result = field.numCoveredSquares();
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            result = field.numCoveredSquares();
+         }
+         finally {
+            lock.unlockRead(stamp);
+         }
+      }
+      return result;
+   }
+
+
+   /**
+    *  Returns a copy of the whole visible game as it was between two moves: every status, the counters and the
+    *  version they go with.  It's copied optimistically, again if a move got in the way, and only then under the read
+    *  lock, so a spectator can't stall the game for long.
+    *
+    *  @return the snapshot
+    */
+   public Snapshot snapshot() {
+
+      Snapshot snapshot = new Snapshot(numRows, numCols);
+      for (int tries = 0; tries < OPTIMISTIC_SNAPSHOT_TRIES; tries++) {
+         long stamp = lock.tryOptimisticRead();
+         if (stamp != 0) {
+            copyInto(snapshot);
+            if (lock.validate(stamp)) {
+               return snapshot;
+            }
+         }
+      }
+      long stamp = lock.readLock();
+      try {
+         copyInto(snapshot);
+      }
+      finally {
+         lock.unlockRead(stamp);
+      }
+      return snapshot;
+   }
+
+
+   /**
+      Copies the game into snapshot (under a lock, or to be validated).
+    */
+   private void copyInto(Snapshot snapshot) {
+
+      byte[] status = snapshot.status;
+      int cell = 0;
+      for (int row = 0; row < numRows; row++) {
+         for (int col = 0; col < numCols; col++) {
+            status[cell++] = (byte) field.getStatus(row, col);
+         }
+      }
+      snapshot.version = version;
+      snapshot.numMinesLeft = field.numMinesLeft();
+      snapshot.numCoveredSquares = field.numCoveredSquares();
+      snapshot.gameOver = field.isGameOver();
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS Snapshot
+   // a consistent copy of the visible game, that can be read at leisure on any thread
+   public static final class Snapshot {
+
+      private final int numRows;
+      private final int numCols;
+      private final byte[] status;     //row-major, like VisibleField's
+      private long version;
+      private int numMinesLeft;
+      private int numCoveredSquares;
+      private boolean gameOver;
+
+      private Snapshot(int numRows, int numCols) {
+         this.numRows = numRows;
+         this.numCols = numCols;
+         this.status = new byte[numRows * numCols];
+      }
+
+      /**
+         Returns the version of the game this is a copy of.
+       */
+      public long version() {
+         return version;
+      }
+
+      /**
+         Returns the number of rows of the game.
+       */
+      public int numRows() {
+         return numRows;
+      }
+
+      /**
+         Returns the number of columns of the game.
+       */
+      public int numCols() {
+         return numCols;
+      }
+
+      /**
+         Returns the status of a square, as VisibleField.getStatus.
+       */
+      public int getStatus(int row, int col) {
+         return status[row * numCols + col];
+      }
+
+      /**
+         Returns the number of mines left to guess, as VisibleField.numMinesLeft.
+       */
+      public int numMinesLeft() {
+         return numMinesLeft;
+      }
+
+      /**
+         Returns the number of covered squares, as VisibleField.numCoveredSquares.
+       */
+      public int numCoveredSquares() {
+         return numCoveredSquares;
+      }
+
+      /**
+         Returns whether the game had ended.
+       */
+      public boolean isGameOver() {
+         return gameOver;
+      }
+   }
+   //------ END OF NESTED CLASS Snapshot -------------------------------------------------
+
+}
@@ -0,0 +1,275 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+   ConcurrentVisibleFieldTester -- a few single threaded checks of ConcurrentVisibleField, then two stress tests.
+   1. Spectators: NUM_GAMES expert games, each played by one of the writer threads with random moves, while reader
+      threads take snapshots of random games.  Every snapshot must be a state the game was really in between two
+      moves: its counters must agree with its squares, and the versions a reader sees of a game must never go back.
+   2. Contention: all the writer threads cycle the guesses of random squares of the same few games at once.  If a
+      move were lost or two were mixed up, the final status of some square wouldn't match the number of times it was
+      cycled (mod 3), or a version wouldn't match the number of moves.
+   Each test runs for about STRESS_MILLIS milliseconds.  Pass a number of milliseconds to run them longer.
+ */
+
+public class ConcurrentVisibleFieldTester {
+
+   private static final int NUM_GAMES = 2000;
+   private static final int NUM_CONTENDED_GAMES = 4;
+   private static final int STRESS_MILLIS = 2000;
+
+   private static boolean[][] smallMineField =
+      {{false, false, false, false},
+      {true, false, false, false},
+      {false, true, true, false},
+      {false, true, false, true}};
+
+
+   public static void main(String[] args) throws InterruptedException {
+
+      long millis = (args.length > 0) ? Long.parseLong(args[0]) : STRESS_MILLIS;
+      int numThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+      ConcurrentVisibleField game = new ConcurrentVisibleField(new VisibleField(new MineField(smallMineField)), false);
+      game.cycleGuess(1, 1);
+      System.out.println("Expected getStatus(1, 1): -2, Actual: " + game.getStatus(1, 1) + ".");
+      System.out.println("Expected numMinesLeft: 4, Actual: " + game.numMinesLeft() + ".");
+      game.uncover(0, 3);
+      System.out.println("Expected getStatus(0, 3): 0, Actual: " + game.getStatus(0, 3) + ".");
+      System.out.println("Expected numCoveredSquares: 11, Actual: " + game.numCoveredSquares() + ".");
+      System.out.println("Expected version: 2, Actual: " + game.version() + ".");
+      ConcurrentVisibleField.Snapshot snapshot = game.snapshot();
+      System.out.println("Expected snapshot getStatus(1, 1), getStatus(0, 3), version: -2 0 2, Actual: "
+                         + snapshot.getStatus(1, 1) + " " + snapshot.getStatus(0, 3) + " " + snapshot.version() + ".");
+      int[] numChanged = new int[1];
+      game.drainChangedCells(cell -> numChanged[0]++);
+      game.drainChangedCells(cell -> numChanged[0] += 100);
+      System.out.println("Expected changed squares drained: 6, Actual: " + numChanged[0] + ".");
+      System.out.println("Expected uncover(1, 0) (a mine): false, isGameOver: true, Actual: " + game.uncover(1, 0)
+                         + ", " + game.isGameOver() + ".");
+      game.resetGameDisplay();
+      System.out.println("Expected after reset getStatus(0, 3): -1, isGameOver: false, Actual: "
+                         + game.getStatus(0, 3) + ", " + game.isGameOver() + ".");
+
+      ConcurrentVisibleField random = new ConcurrentVisibleField(new VisibleField(new MineField(16, 30, 99)), true);
+      System.out.println("Expected first uncover on random mines: true, Actual: " + random.uncover(8, 15) + ".");
+
+      System.out.println();
+      System.out.println("Stress tests, " + numThreads + " writer and " + numThreads + " reader threads, "
+                         + millis + " ms each:");
+      spectatorTest(numThreads, millis);
+      contentionTest(numThreads, millis);
+   }
+
+
+   /**
+      Stress test 1: one writer per game, readers taking snapshots of any game.
+    */
+   private static void spectatorTest(int numThreads, long millis) throws InterruptedException {
+
+      ConcurrentVisibleField[] games = new ConcurrentVisibleField[NUM_GAMES];
+      for (int i = 0; i < NUM_GAMES; i++) {
+         MineField mineField = new MineField(16, 30, 99);
+         mineField.setRandomGenerator(new SplittableRandom(i));
+         games[i] = new ConcurrentVisibleField(new VisibleField(mineField), true);
+      }
+      AtomicBoolean stop = new AtomicBoolean();
+      AtomicLong moves = new AtomicLong();
+      AtomicLong snapshots = new AtomicLong();
+      AtomicLong errors = new AtomicLong();
+      long[] movesPerGame = new long[NUM_GAMES];     //each game is only counted by its own writer
+
+      Thread[] threads = new Thread[2 * numThreads];
+      for (int t = 0; t < numThreads; t++) {
+         int writer = t;
+         threads[t] = new Thread(() -> {
+            SplittableRandom rand = new SplittableRandom(writer);
+            long numMoves = 0;
+            while (!stop.get()) {
+               for (int i = writer; i < NUM_GAMES; i += numThreads) {
+                  int made = playMove(games[i], rand);
+                  movesPerGame[i] += made;
+                  numMoves += made;
+               }
+            }
+            moves.addAndGet(numMoves);
+         });
+      }
+      for (int t = 0; t < numThreads; t++) {
+         int reader = t;
+         threads[numThreads + t] = new Thread(() -> {
+            SplittableRandom rand = new SplittableRandom(-1 - reader);
+            long[] lastVersion = new long[NUM_GAMES];
+            long numSnapshots = 0;
+            while (!stop.get()) {
+               int i = rand.nextInt(NUM_GAMES);
+               ConcurrentVisibleField.Snapshot snapshot = games[i].snapshot();
+               numSnapshots++;
+               if (!isConsistent(snapshot, 99) || snapshot.version() < lastVersion[i]) {
+                  errors.incrementAndGet();
+               }
+               lastVersion[i] = snapshot.version();
+               int status = games[i].getStatus(rand.nextInt(16), rand.nextInt(30));
+               if (status < VisibleField.QUESTION || status > VisibleField.EXPLODED_MINE) {
+                  errors.incrementAndGet();
+               }
+            }
+            snapshots.addAndGet(numSnapshots);
+         });
+      }
+      runFor(threads, stop, millis);
+
+      long wrongVersions = 0;
+      for (int i = 0; i < NUM_GAMES; i++) {
+         if (games[i].version() != movesPerGame[i] || !isConsistent(games[i].snapshot(), 99)) {
+            wrongVersions++;
+         }
+      }
+      System.out.println(NUM_GAMES + " games, " + moves.get() + " moves, " + snapshots.get() + " snapshots:");
+      System.out.println("Expected inconsistent snapshots: 0, Actual: " + errors.get() + ".");
+      System.out.println("Expected games with a wrong version at the end: 0, Actual: " + wrongVersions + ".");
+   }
+
+
+   /**
+      Stress test 2: every writer cycling guesses on the same few games, a reader checking snapshots of them.
+    */
+   private static void contentionTest(int numThreads, long millis) throws InterruptedException {
+
+      ConcurrentVisibleField[] games = new ConcurrentVisibleField[NUM_CONTENDED_GAMES];
+      AtomicIntegerArray[] cycles = new AtomicIntegerArray[NUM_CONTENDED_GAMES];
+      for (int i = 0; i < NUM_CONTENDED_GAMES; i++) {
+         games[i] = new ConcurrentVisibleField(new VisibleField(new MineField(9, 9, 10)), true);
+         cycles[i] = new AtomicIntegerArray(81);
+      }
+      AtomicBoolean stop = new AtomicBoolean();
+      AtomicLong moves = new AtomicLong();
+      AtomicLong errors = new AtomicLong();
+
+      Thread[] threads = new Thread[numThreads + 1];
+      for (int t = 0; t < numThreads; t++) {
+         int writer = t;
+         threads[t] = new Thread(() -> {
+            SplittableRandom rand = new SplittableRandom(writer);
+            long numMoves = 0;
+            while (!stop.get()) {
+               int i = rand.nextInt(NUM_CONTENDED_GAMES);
+               int cell = rand.nextInt(81);
+               games[i].cycleGuess(cell / 9, cell % 9);
+               cycles[i].incrementAndGet(cell);
+               numMoves++;
+            }
+            moves.addAndGet(numMoves);
+         });
+      }
+      threads[numThreads] = new Thread(() -> {
+         SplittableRandom rand = new SplittableRandom(-1);
+         while (!stop.get()) {
+            if (!isConsistent(games[rand.nextInt(NUM_CONTENDED_GAMES)].snapshot(), 10)) {
+               errors.incrementAndGet();
+            }
+         }
+      });
+      runFor(threads, stop, millis);
+
+      int[] cycleStatus = {VisibleField.COVERED, VisibleField.MINE_GUESS, VisibleField.QUESTION};
+      long wrongSquares = 0;
+      long wrongVersions = 0;
+      for (int i = 0; i < NUM_CONTENDED_GAMES; i++) {
+         long gameCycles = 0;
+         for (int cell = 0; cell < 81; cell++) {
+            gameCycles += cycles[i].get(cell);
+            if (games[i].getStatus(cell / 9, cell % 9) != cycleStatus[cycles[i].get(cell) % 3]) {
+               wrongSquares++;
+            }
+         }
+         if (games[i].version() != gameCycles) {
+            wrongVersions++;
+         }
+      }
+      System.out.println(NUM_CONTENDED_GAMES + " shared games, " + moves.get() + " moves:");
+      System.out.println("Expected squares in the wrong state: 0, Actual: " + wrongSquares + ".");
+      System.out.println("Expected games with a wrong version: 0, Actual: " + wrongVersions + ".");
+      System.out.println("Expected inconsistent snapshots: 0, Actual: " + errors.get() + ".");
+   }
+
+
+   /**
+      Makes one random move on a game (restarting it if it's over), the way a player might: uncover a covered square
+      that isn't guessed, cycle the guess of a square or chord one.  Returns the number of moves made (0 or 1).
+      Only called by the game's own writer, so the game can't change between looking at it and moving.
+    */
+   private static int playMove(ConcurrentVisibleField game, SplittableRandom rand) {
+
+      if (game.isGameOver()) {
+         game.resetGameDisplay();
+         return 1;
+      }
+      int row = rand.nextInt(game.numRows());
+      int col = rand.nextInt(game.numCols());
+      int move = rand.nextInt(4);
+      if (move == 0) {
+         game.cycleGuess(row, col);
+         return 1;
+      }
+      if (move == 1) {
+         game.chord(row, col);
+         return 1;
+      }
+      if (game.getStatus(row, col) == VisibleField.COVERED || game.getStatus(row, col) == VisibleField.QUESTION) {
+         game.uncover(row, col);
+         return 1;
+      }
+      return 0;
+   }
+
+
+   /**
+      Whether a snapshot could be a state of a game between two moves: the covered squares counted agree with
+      numCoveredSquares, and while the game isn't over, the mine guesses agree with numMinesLeft and no square shows
+      a mine (the end-of-game statuses only appear when the game ends).
+    */
+   private static boolean isConsistent(ConcurrentVisibleField.Snapshot snapshot, int numMines) {
+
+      int numCovered = 0;
+      int numGuesses = 0;
+      int numEndStatuses = 0;
+      for (int row = 0; row < snapshot.numRows(); row++) {
+         for (int col = 0; col < snapshot.numCols(); col++) {
+            int status = snapshot.getStatus(row, col);
+            if (status < 0) {
+               numCovered++;
+            }
+            if (status == VisibleField.MINE_GUESS) {
+               numGuesses++;
+            }
+            if (status >= VisibleField.MINE) {
+               numEndStatuses++;
+            }
+         }
+      }
+      if (numCovered != snapshot.numCoveredSquares()) {
+         return false;
+      }
+      return snapshot.isGameOver() || (numGuesses == numMines - snapshot.numMinesLeft() && numEndStatuses == 0);
+   }
+
+
+   /**
+      Starts the threads, lets them run for millis milliseconds, then stops them and waits for them to finish.
+    */
+   private static void runFor(Thread[] threads, AtomicBoolean stop, long millis) throws InterruptedException {
+
+      for (Thread thread : threads) {
+         thread.start();
+      }
+      Thread.sleep(millis);
+      stop.set(true);
+      for (Thread thread : threads) {
+         thread.join();
+      }
+   }
+
+}
@@ -0,0 +1,258 @@
+import java.util.Arrays;
+
+/**
+ *  FrontierComponent
+ *  One connected part of the frontier of a game, as seen by MineSolver: a set of covered squares (the variables) and
+ *  the opened numbers next to them (the constraints), such that no constraint outside the component touches its
+ *  variables.  enumerate() finds every way of placing mines on the variables that satisfies all the constraints, and
+ *  counts, for each possible number of mines k in the component, how many placements there are (solutions[k]) and
+ *  how many of them have a mine on variable i (mineCounts[i][k]).
+ *
+ *  Two components with the same signature (variables, constraint squares and the number of mines each constraint
+ *  still needs) have the same solutions, so equals and hashCode only look at the signature, and a component that
+ *  was already enumerated can be looked up in a map by building an equal one.  A component doesn't share any data
+ *  with the solver once built, so different components can be enumerated on different threads.
+ */
+
+final class FrontierComponent {
+
+  /**
+   *   Representation invariant:
+   *
+   *   vars is sorted ascending and holds squares (row * numCols + col); consVars[j] are the indexes into vars of the
+   *   variables next to constraint j, which needs consRems[j] mines among them.
+   *   varCons[i] are the indexes of the constraints next to variable i.
+   *   signature = {vars.length, vars..., consCells[0], consRems[0], consCells[1], consRems[1], ...}, with the
+   *   constraints sorted by square.
+   *   Once enumerated: solutions.length = mineCounts[i].length = vars.length + 1, and complete is false if the
+   *   enumeration was cut short (then the counts can't be used).
+   */
+
+   private final int[] vars;
+   private final int[] consRems;
+   private final int[][] consVars;
+   private final int[][] varCons;
+   private final int[] signature;
+   private final int hash;
+
+   private boolean enumerated = false;
+   private boolean complete = false;
+   private long[] solutions;
+   private long[][] mineCounts;
+
+   // state of the backtracking search, only used during enumerate()
+   private int[] order;
+   private int[] consMines;
+   private int[] consUnassigned;
+   private boolean[] assigned;
+   private long stepsLeft;
+
+
+   /**
+    *  Creates a component from its variables and constraints.
+    *
+    *  @param vars  the covered squares, sorted ascending
+    *  @param consCells  the squares of the constraints, sorted ascending
+    *  @param consRems  the number of mines each constraint still needs among its variables
+    *  @param consVars  for each constraint, the indexes into vars of its variables
+    *  PRE: every variable is next to at least one constraint, and they are all connected through the constraints
+    */
+   FrontierComponent(int[] vars, int[] consCells, int[] consRems, int[][] consVars) {
+
+      this.vars = vars;
+      this.consRems = consRems;
+      this.consVars = consVars;
+
+      int[] numVarCons = new int[vars.length];
+      for (int[] cons : consVars) {
+         for (int var : cons) {
+            numVarCons[var]++;
+         }
+      }
+      varCons = new int[vars.length][];
+      for (int i = 0; i < vars.length; i++) {
+         varCons[i] = new int[numVarCons[i]];
+         numVarCons[i] = 0;
+      }
+      for (int j = 0; j < consVars.length; j++) {
+         for (int var : consVars[j]) {
+            varCons[var][numVarCons[var]++] = j;
+         }
+      }
+
+      signature = new int[1 + vars.length + 2 * consCells.length];
+      signature[0] = vars.length;
+      System.arraycopy(vars, 0, signature, 1, vars.length);
+      for (int j = 0; j < consCells.length; j++) {
+         signature[1 + vars.length + 2 * j] = consCells[j];
+         signature[2 + vars.length + 2 * j] = consRems[j];
+      }
+      hash = Arrays.hashCode(signature);
+   }
+
+
+   /**
+    *  Finds all the mine placements on the variables that satisfy the constraints, by backtracking over the
+    *  variables in breadth first order (see searchOrder).  Gives up, leaving the component incomplete, after
+    *  maxSteps assignments.  Does nothing the second time.
+    *
+    *  @param maxSteps  the most variable assignments to try
+    */
+   void enumerate(long maxSteps) {
+
+      if (enumerated) return;
+      enumerated = true;
+
+      int numVars = vars.length;
+      solutions = new long[numVars + 1];
+      mineCounts = new long[numVars][numVars + 1];
+      consMines = new int[consRems.length];
+      consUnassigned = new int[consRems.length];
+      for (int j = 0; j < consRems.length; j++) {
+         consUnassigned[j] = consVars[j].length;
+      }
+      assigned = new boolean[numVars];
+      order = searchOrder();
+      stepsLeft = maxSteps;
+
+      complete = search(0, 0);
+
+      order = null;
+      consMines = null;
+      consUnassigned = null;
+      assigned = null;
+   }
+
+
+   /**
+      Orders the variables breadth first through the constraints, starting from the first one, so that the
+      variables of each constraint are assigned close together whatever the shape of the frontier, and constraints
+      are filled (and prune) as early as possible.
+    */
+   private int[] searchOrder() {
+
+      int[] queue = new int[vars.length];
+      boolean[] queued = new boolean[vars.length];
+      boolean[] consDone = new boolean[consVars.length];
+      int size = 1;
+      queued[0] = true;
+      for (int head = 0; head < size; head++) {
+         for (int j : varCons[queue[head]]) {
+            if (consDone[j]) continue;
+            consDone[j] = true;
+            for (int var : consVars[j]) {
+               if (!queued[var]) {
+                  queued[var] = true;
+                  queue[size++] = var;
+               }
+            }
+         }
+      }
+      return queue;
+   }
+
+
+   /**
+      Assigns the variables order[depth], order[depth + 1], ... in every consistent way, counting the solutions.
+      numMines is the number of mines on the variables assigned so far.  Returns false if it ran out of steps.
+    */
+   private boolean search(int depth, int numMines) {
+
+      if (depth == vars.length) {
+         solutions[numMines]++;
+         for (int i = 0; i < vars.length; i++) {
+            if (assigned[i]) {
+               mineCounts[i][numMines]++;
+            }
+         }
+         return true;
+      }
+
+      int var = order[depth];
+      for (int mine = 0; mine <= 1; mine++) {
+         if (--stepsLeft < 0) return false;
+         assigned[var] = (mine == 1);
+         boolean consistent = true;
+         for (int j : varCons[var]) {
+            consUnassigned[j]--;
+            consMines[j] += mine;
+            if (consMines[j] > consRems[j] || consMines[j] + consUnassigned[j] < consRems[j]) {
+               consistent = false;
+            }
+         }
+         boolean finished = !consistent || search(depth + 1, numMines + mine);
+         for (int j : varCons[var]) {
+            consUnassigned[j]++;
+            consMines[j] -= mine;
+         }
+         if (!finished) return false;
+      }
+      assigned[var] = false;
+      return true;
+   }
+
+
+   /**
+    *  Returns the covered squares of this component, sorted.  Not to be modified.
+    */
+   int[] vars() {
+      return vars;
+   }
+
+   /**
+    *  Returns whether enumerate() finished, so the counts below are exact.
+    */
+   boolean isComplete() {
+      return complete;
+   }
+
+   /**
+    *  Returns the number of solutions with exactly k mines in the component.
+    *  PRE: isComplete()
+    */
+   long solutions(int k) {
+      return solutions[k];
+   }
+
+   /**
+    *  Returns the number of solutions with exactly k mines in the component that have a mine on variable i.
+    *  PRE: isComplete()
+    */
+   long mineCount(int i, int k) {
+      return mineCounts[i][k];
+   }
+
+   /**
+    *  Returns the total number of solutions, whatever their number of mines.
+    *  PRE: isComplete()
+    */
+   long totalSolutions() {
+      long total = 0;
+      for (long count : solutions) {
+         total += count;
+      }
+      return total;
+   }
+
+   /**
+    *  Returns the number of solutions, whatever their number of mines, that have a mine on variable i.
+    *  PRE: isComplete()
+    */
+   long totalMineCount(int i) {
+      long total = 0;
+      for (long count : mineCounts[i]) {
+         total += count;
+      }
+      return total;
+   }
+
+
+   public boolean equals(Object other) {
+      return (other instanceof FrontierComponent) && Arrays.equals(signature, ((FrontierComponent) other).signature);
+   }
+
+   public int hashCode() {
+      return hash;
+   }
+
+}
@@ -0,0 +1,280 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ *  GameArchive
+ *  A file holding any number of games as GameCodec records, written one after another by a GameArchive.Writer, and
+ *  read back through memory-mapped buffers.  The file is:
+ *
+ *     MAGIC (int), VERSION (int)
+ *     the records, back to back
+ *     the index: the file offset of each record (long each)
+ *     the trailer: the file offset of the index (long), the number of games (long), MAGIC (int)
+ *
+ *  Reading maps the file in segments of at most MAX_SEGMENT_SIZE bytes (a MappedByteBuffer can't be bigger than
+ *  2GB), each one holding whole records, so an archive can be bigger than 2GB.  Games are looked at through
+ *  GameView flyweights that read the mapped records in place: iterating over all the games with forEach doesn't
+ *  copy a record or create an object per game.
+ */
+
+public class GameArchive implements Closeable {
+
+   static final int MAGIC = 0x4D534741;    //"MSGA"
+   static final int VERSION = 1;
+   private static final int FILE_HEADER_SIZE = 8;
+   private static final int TRAILER_SIZE = 20;
+   private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+   private final FileChannel channel;
+   private final int numGames;
+   private final LongBuffer index;                 //the offsets of the records
+   private final MappedByteBuffer[] segments;
+   private final long[] segmentStarts;             //file offset of the first byte of each segment
+   private final int[] segmentFirstGames;          //index of the first game of each segment
+
+
+   /**
+    *  Opens an archive written by GameArchive.Writer, and maps it.
+    *
+    *  @param path  the archive file
+    *  @throws IOException  if the file can't be read or isn't an archive (or its index is corrupt); the file is
+    *                       closed again
+    */
+   public GameArchive(Path path) throws IOException {
+
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+         long size = channel.size();
+         if (size < FILE_HEADER_SIZE + TRAILER_SIZE) {
+            throw new IOException(path + " is not a game archive");
+         }
+         ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+         long indexOffset = trailer.getLong();
+         long games = trailer.getLong();
+         ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_SIZE);
+         if (trailer.getInt() != MAGIC || header.getInt() != MAGIC || header.getInt() != VERSION
+               || games < 0 || games > Integer.MAX_VALUE / 8 || indexOffset < FILE_HEADER_SIZE
+               || indexOffset + 8 * games != size - TRAILER_SIZE) {
+            throw new IOException(path + " is not a game archive (or is from another version)");
+         }
+         numGames = (int) games;
+         index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, 8L * numGames).asLongBuffer();
+
+         // cut the records into segments of whole records, as big as possible, checking that the records are back
+         // to back between the header and the index (so a corrupt index can't make a segment that can't be mapped)
+         int numSegments = 0;
+         long[] starts = new long[4];
+         int[] firstGames = new int[4];
+         long segmentStart = -1;
+         for (int game = 0; game < numGames; game++) {
+            long start = index.get(game);
+            long end = (game + 1 < numGames) ? index.get(game + 1) : indexOffset;
+            if ((game == 0 && start != FILE_HEADER_SIZE) || end <= start || end > indexOffset
+                  || end - start > Integer.MAX_VALUE) {
+               throw new IOException(path + " has a corrupt index (game " + game + ")");
+            }
+            if (segmentStart < 0 || end - segmentStart > MAX_SEGMENT_SIZE) {
+               if (numSegments == starts.length) {
+                  starts = Arrays.copyOf(starts, 2 * numSegments);
+                  firstGames = Arrays.copyOf(firstGames, 2 * numSegments);
+               }
+               segmentStart = start;
+               starts[numSegments] = segmentStart;
+               firstGames[numSegments] = game;
+               numSegments++;
+            }
+         }
+         segmentStarts = Arrays.copyOf(starts, numSegments);
+         segmentFirstGames = Arrays.copyOf(firstGames, numSegments);
+         segments = new MappedByteBuffer[numSegments];
+         for (int s = 0; s < numSegments; s++) {
+            long end = (s + 1 < numSegments) ? segmentStarts[s + 1] : indexOffset;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStarts[s], end - segmentStarts[s]);
+         }
+      }
+      catch (Throwable e) {
+         closeAfter(channel, e);
+         throw e;
+      }
+   }
+
+
+   /**
+    *  Returns the number of games in the archive.
+    *
+    *  @return the number of games
+    */
+   public int numGames() {
+
+      return numGames;
+   }
+
+
+   /**
+    *  Moves a view to the given game.
+    *
+    *  @param game  the index of the game
+    *  @param view  the view to move (e.g., the one used for the previous game)
+    *  @return view
+    *  PRE: 0 <= game < numGames()
+    */
+   public GameView view(int game, GameView view) {
+
+      int s = Arrays.binarySearch(segmentFirstGames, game);
+      if (s < 0) {
+         s = -s - 2;   //the last segment starting before the game
+      }
+      return view.moveTo(segments[s], (int) (index.get(game) - segmentStarts[s]));
+   }
+
+
+   /**
+    *  Calls action with a view of every game, in order.  The same view is moved from game to game, so action must
+    *  not keep it.
+    *
+    *  @param action  what to do with each game
+    */
+   public void forEach(Consumer<GameView> action) {
+
+      GameView view = new GameView();
+      for (int s = 0; s < segments.length; s++) {
+         int last = (s + 1 < segments.length) ? segmentFirstGames[s + 1] : numGames;
+         for (int game = segmentFirstGames[s]; game < last; game++) {
+            action.accept(view.moveTo(segments[s], (int) (index.get(game) - segmentStarts[s])));
+         }
+      }
+   }
+
+
+   /**
+    *  Closes a channel after failure (opening an archive, or writing one), keeping any failure to close as
+    *  suppressed by it.
+    */
+   private static void closeAfter(FileChannel channel, Throwable failure) {
+
+      try {
+         channel.close();
+      }
+      catch (IOException e) {
+         failure.addSuppressed(e);
+      }
+   }
+
+
+   /**
+    *  Closes the file.  The views must not be used afterwards.
+    *
+    *  @throws IOException  if closing fails
+    */
+   public void close() throws IOException {
+
+      channel.close();
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS Writer
+   // appends games to a new archive file through one direct buffer, and writes the index when closed
+   public static class Writer implements Closeable {
+
+      private static final int BUFFER_SIZE = 1 << 20;
+
+      private final FileChannel channel;
+      private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      private long position;             //file offset of the start of buffer
+      private long[] offsets = new long[1024];
+      private int numGames = 0;
+
+      /**
+         Creates (or truncates) the archive file.
+         @param path  the archive file
+         @throws IOException  if the file can't be written
+       */
+      public Writer(Path path) throws IOException {
+         channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                    StandardOpenOption.WRITE);
+         try {
+            buffer.putInt(MAGIC).putInt(VERSION);
+         }
+         catch (Throwable e) {
+            closeAfter(channel, e);
+            throw e;
+         }
+      }
+
+      /**
+         Appends a game to the archive.
+         @param game  the game to save
+         @throws IOException  if writing fails
+       */
+      public void append(VisibleField game) throws IOException {
+         MineField mineField = game.getMineField();
+         int size = GameCodec.encodedSize(mineField.numRows(), mineField.numCols());
+         if (buffer.remaining() < size) {
+            flush();
+            if (buffer.capacity() < size) {
+               buffer = ByteBuffer.allocateDirect(size);
+            }
+         }
+         if (numGames == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * numGames);
+         }
+         offsets[numGames++] = position + buffer.position();
+         GameCodec.encode(game, buffer);
+      }
+
+      /**
+         Returns the number of games appended so far.
+       */
+      public int numGames() {
+         return numGames;
+      }
+
+      /**
+         Writes the index and the trailer, and closes the file (even if writing fails).
+         @throws IOException  if writing fails
+       */
+      public void close() throws IOException {
+         try {
+            long indexOffset = position + buffer.position();
+            for (int game = 0; game < numGames; game++) {
+               if (buffer.remaining() < 8) {
+                  flush();
+               }
+               buffer.putLong(offsets[game]);
+            }
+            if (buffer.remaining() < TRAILER_SIZE) {
+               flush();
+            }
+            buffer.putLong(indexOffset).putLong(numGames).putInt(MAGIC);
+            flush();
+         }
+         catch (Throwable e) {
+            closeAfter(channel, e);
+            throw e;
+         }
+         channel.close();
+      }
+
+      /**
+         Writes out what's in the buffer.
+       */
+      private void flush() throws IOException {
+         buffer.flip();
+         while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+         }
+         buffer.clear();
+      }
+   }
+   //------ END OF NESTED CLASS Writer ---------------------------------------------------
+
+}
@@ -2,18 +2,29 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GridLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
 
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
 
 /**
@@ -45,8 +56,17 @@ class GameBoardPanel extends JPanel {
       is created for each square on the board).  
       The Model for a single square is not a separate class, but is collectively part of visibleField and can be
       accessed using VisibleField methods getStatus(row, col) and isCovered(row, col), and can be mutated with
-      VisibleField methods cycleGuess(row, col) and uncover(row, col) [the last of these can change more than one 
-      square]
+      VisibleField methods cycleGuess(row, col), uncover(row, col) and chord(row, col) [the last two of these can
+      change more than one square].  After each action, only the squares that VisibleField reports as changed (see nextChangedCell) get 
+      their views updated and repainted.
+      
+      Alternatively (RenderMode.CANVAS, chosen when the panel is constructed) the whole board is a single BoardCanvas
+      component with a single mouse listener.  It draws each visible square as one of a few cached tile images (one
+      per possible status, made by painting a label set up just like a SquareView, so it looks the same), and maps
+      mouse coordinates to (row, col).  This avoids creating two objects per square on big boards.
+      The canvas sits in a JScrollPane: it only paints the squares in the visible part of the viewport, so the
+      view's memory and paint time don't depend on the size of the board.  Ctrl + mouse wheel zooms in and out
+      through ZOOM_SQUARE_SIZES.  When the whole board fits in the viewport it is stretched to fill it, like the grid.
     */
       
    private static final int BORDER_THICKNESS = 1;
@@ -61,6 +81,13 @@ class GameBoardPanel extends JPanel {
    private static final Color MINE_COLOR = Color.BLACK;
    private static final Color MINE_GUESS_COLOR = Color.YELLOW;
    
+   // text of a square showing its number of neighboring mines, so redrawing a number doesn't make a new string
+   private static final String[] NUMBER_TEXTS = {"0", "1", "2", "3", "4", "5", "6", "7", "8"};
+   
+   // square sizes (in pixels) of the zoom levels of BoardCanvas; DEFAULT_ZOOM is the size of a SquareView
+   private static final int[] ZOOM_SQUARE_SIZES = {4, 8, 12, 16, 20, 25, 32, 40, 50};
+   private static final int DEFAULT_ZOOM = 5;
+   
    // these two files need to be in a subdir of the location of the .class files
    private static final String HAPPY_ICON_FILE_NAME = "images/facesmile.gif";
    private static final String SAD_ICON_FILE_NAME = "images/facedead.gif";
@@ -72,16 +99,25 @@ class GameBoardPanel extends JPanel {
    private static final String MINE_GUESS_TOOLTIP_TEXT = "number of mines left to guess";
    private static final String NEW_GAME_TOOLTIP_TEXT = "new game";
    
+   /**
+      How the minefield is displayed: one SquareView component per square, or one BoardCanvas for the whole board.
+    */
+   static enum RenderMode { SQUARE_VIEWS, CANVAS }
+   
    private static final Border TOP_LABEL_BORDER = BorderFactory.createLineBorder(Color.black);
    private static final Border EMPTY_BORDER = BorderFactory.createEmptyBorder();
 
    // controls/displays at the top
    private JLabel mineGuessLabel;
+   private String[] counterTexts;   // text of each number mineGuessLabel can show (0 to numMines), made when first shown
    private JButton newGameButton;
    private JLabel gameStatusLabel;
   
-   // Grid of "buttons" (actually JLabels)
+   // Grid of "buttons" (actually JLabels), null in CANVAS mode
    private SquareView[][] mySquares;  // need so we can update display en masse
+   
+   private BoardCanvas canvas;        // the whole board in CANVAS mode, null in SQUARE_VIEWS mode
+   private RenderMode renderMode;
 
    private VisibleField visibleField;     // game data (the Model in MVC)
    
@@ -90,6 +126,9 @@ class GameBoardPanel extends JPanel {
    
    private boolean isRandomMineField;    // also can play the game with a fixed mine field
    
+   private int chordableCell = -1;   // the square (row * numCols + col) the last single left click found already
+                                     // opened, the only one a double click may chord (-1 if none)
+   
    
    /**
      Creates a GameBoardPanel from a given VisibleField (which contains an associated MineField).
@@ -99,8 +138,20 @@ class GameBoardPanel extends JPanel {
    */
    public GameBoardPanel(VisibleField visibleField) { 
       
+      this(visibleField, RenderMode.SQUARE_VIEWS);
+      
+   }
+   
+   /**
+     Creates a GameBoardPanel from a given VisibleField like the 1-arg constructor, displayed in the given mode.
+     @param visibleField  the VisibleField that this GUI reflects
+     @param renderMode  whether to use a SquareView per square or a single BoardCanvas
+   */
+   public GameBoardPanel(VisibleField visibleField, RenderMode renderMode) { 
+      
       this.visibleField = visibleField;     
       this.isRandomMineField = false;
+      this.renderMode = renderMode;
       
       setUpGUI(); 
       
@@ -113,16 +164,53 @@ class GameBoardPanel extends JPanel {
      @param numRows  number of rows the minefield will have, must be positive
      @param numCols  number of columns the minefield will have, must be positive
      @param numMines   number of mines the minefield will have once we populate it.
-     PRE: numMines < 1/3 of possible field locations
+     PRE: numMines < number of possible field locations
    */
    public GameBoardPanel(int numRows, int numCols, int numMines) {
       
+      this(numRows, numCols, numMines, RenderMode.SQUARE_VIEWS);
+   }
+   
+   /**
+     Creates a GameBoardPanel for a random minefield like the 3-arg constructor, displayed in the given mode.
+     @param numRows  number of rows the minefield will have, must be positive
+     @param numCols  number of columns the minefield will have, must be positive
+     @param numMines   number of mines the minefield will have once we populate it.
+     @param renderMode  whether to use a SquareView per square or a single BoardCanvas
+     PRE: numMines < number of possible field locations
+   */
+   public GameBoardPanel(int numRows, int numCols, int numMines, RenderMode renderMode) {
+      
+      this(numRows, numCols, numMines, renderMode, false);
+   }
+   
+   /**
+     Creates a GameBoardPanel for a random minefield like the 4-arg constructor, optionally generating only boards
+     that can be won without guessing from the first square the user opens (see MineField.setNoGuess).
+     @param numRows  number of rows the minefield will have, must be positive
+     @param numCols  number of columns the minefield will have, must be positive
+     @param numMines   number of mines the minefield will have once we populate it.
+     @param renderMode  whether to use a SquareView per square or a single BoardCanvas
+     @param noGuess  whether to generate no-guess boards
+     @throws IllegalArgumentException  if noGuess is true and the board has more than NoGuessGenerator.MAX_DENSITY
+                                       mines per location, where no-guess boards can't be found
+     PRE: numMines < number of possible field locations (minus 8 for no-guess boards)
+   */
+   public GameBoardPanel(int numRows, int numCols, int numMines, RenderMode renderMode, boolean noGuess) {
+      
       assert numRows > 0 && numCols > 0;
-      int limit = numRows * numCols; 
-      assert numMines < limit / 3.0;
+      int limit = noGuess ? numRows * numCols - 8 : numRows * numCols; 
+      assert numMines < limit;
+      if (noGuess && numMines > NoGuessGenerator.MAX_DENSITY * numRows * numCols) {
+         throw new IllegalArgumentException("no-guess boards can't have more than "
+                                            + (int) (NoGuessGenerator.MAX_DENSITY * 100) + "% mines");
+      }
       
-      this.visibleField = new VisibleField(new MineField(numRows, numCols, numMines));
+      MineField mineField = new MineField(numRows, numCols, numMines);
+      mineField.setNoGuess(noGuess);
+      this.visibleField = new VisibleField(mineField);
       this.isRandomMineField = true;
+      this.renderMode = renderMode;
       
       setUpGUI();
    }
@@ -138,6 +226,15 @@ class GameBoardPanel extends JPanel {
       
       add(top, BorderLayout.NORTH);
       
+      if (renderMode == RenderMode.CANVAS) {
+         canvas = new BoardCanvas();
+         JScrollPane scrollPane = new JScrollPane(canvas);
+         scrollPane.setBorder(EMPTY_BORDER);
+         add(scrollPane, BorderLayout.CENTER);
+         visibleField.clearChangedCells();   // the canvas always paints the current state
+         return;
+      }
+      
       JPanel board = new JPanel();
           
       mySquares = new SquareView[visibleField.getMineField().numRows()][visibleField.getMineField().numCols()];
@@ -155,6 +252,7 @@ class GameBoardPanel extends JPanel {
       }
       
       add(board, BorderLayout.CENTER);
+      visibleField.clearChangedCells();   // every SquareView was just created from the current state
    }
    
    
@@ -171,7 +269,8 @@ class GameBoardPanel extends JPanel {
       top.setBorder(PADDING);
       
       // tells how many mines guessed in game
-      mineGuessLabel = new JLabel(Integer.toString(visibleField.getMineField().numMines()));
+      counterTexts = new String[visibleField.getMineField().numMines() + 1];
+      mineGuessLabel = new JLabel(counterText(visibleField.getMineField().numMines()));
       mineGuessLabel.setHorizontalAlignment(SwingConstants.CENTER);
       mineGuessLabel.setBorder(TOP_LABEL_BORDER);
       mineGuessLabel.setToolTipText(MINE_GUESS_TOOLTIP_TEXT);
@@ -190,11 +289,10 @@ class GameBoardPanel extends JPanel {
             // subsequent games.
             visibleField.resetGameDisplay();
             userChoseFirstLocation = false;
-            updateAllSquaresViews();
-            mineGuessLabel.setText(Integer.toString(visibleField.getMineField().numMines()));
+            updateChangedSquaresViews();   // the squares that were not covered any more
+            mineGuessLabel.setText(counterText(visibleField.getMineField().numMines()));
             newGameButton.setIcon(happyIcon);
             gameStatusLabel.setText("");
-            repaint();
          }
       });
       
@@ -231,14 +329,27 @@ class GameBoardPanel extends JPanel {
 
 
    /**
-      Update all the squares in the GUI based on the current state of the VisibleField.
+      Update and repaint the squares in the GUI whose state in the VisibleField changed since the last update,
+      then tell the VisibleField they're up to date.
     */
-   private void updateAllSquaresViews() {
-      for (int row = 0; row < mySquares.length; row++) {
-         for (int col = 0; col < mySquares[0].length; col++) {
-            mySquares[row][col].updateDisplayProperties();
+   private void updateChangedSquaresViews() {
+      long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+      int numChanged = visibleField.numChangedCells();
+      int numCols = visibleField.getMineField().numCols();
+      for (int cell = visibleField.nextChangedCell(0); cell >= 0; cell = visibleField.nextChangedCell(cell + 1)) {
+         if (canvas != null) {
+            canvas.repaintSquare(cell / numCols, cell % numCols);
          }
-      }   
+         else {
+            SquareView square = mySquares[cell / numCols][cell % numCols];
+            square.updateDisplayProperties();
+            square.repaint();
+         }
+      }
+      visibleField.clearChangedCells();
+      if (GameMetrics.ENABLED) {
+         GameMetrics.recordGuiUpdate(numChanged, System.nanoTime() - start);
+      }
    }
    
    
@@ -256,6 +367,203 @@ class GameBoardPanel extends JPanel {
    }
    
    
+   /**
+      Respond to a mouse button being pressed on the square at (row, col): left click opens it, right click changes
+      its guess status, and middle click (or a left double click) on an opened number chords it.  A double click only
+      chords a square that was already opened before its first click, so double clicking a covered square doesn't
+      open its neighbors as well.  Does nothing once the game is over.
+    * @param e  the mouse event
+    * @param row  row of the square
+    * @param col  column of the square
+    */
+   private void squarePressed(MouseEvent e, int row, int col) {
+      
+      if (visibleField.isGameOver()) return;  // don't respond to clicks if the game is over
+      
+      int cell = row * visibleField.getMineField().numCols() + col;
+      if (e.getButton() == MouseEvent.BUTTON1 && e.getClickCount() == 1) {
+         chordableCell = visibleField.isUncovered(row, col) ? cell : -1;   // before this click opens it
+      }
+      boolean isDoubleClickOnNumber = e.getButton() == MouseEvent.BUTTON1 && e.getClickCount() == 2
+                                      && cell == chordableCell;
+      if (e.getButton() == MouseEvent.BUTTON2 || isDoubleClickOnNumber) {  // middle click or double click
+         chordSquare(row, col);
+      }
+      else if (e.getButton() == MouseEvent.BUTTON1) { // left click
+         openSquare(row, col);
+      }
+      else if (e.getButton() == MouseEvent.BUTTON3) {  // right click
+         changeGuessStatus(row, col);
+      }
+   }
+   
+   
+   /**
+      Opens the square at (row, col).  This in turn may open other squares (flood fill of empty areas).  If this square has a mine in it
+      or if the flood fill results in opening all the non-mine squares, this action can end the game.  
+      If this is the first square to be opened in a "random" game (ie., isRandomMineField is true), 
+      this will trigger the initial placement of the mines before the flood fill (and guarantee that
+      no mine is on this square so a user doesn't lose on the first click).
+    * @param row  row of the square
+    * @param col  column of the square
+    */
+   private void openSquare(int row, int col) {
+                           // can't open it when it's a mine guess (user has to right click to "?" state first)
+      if ((visibleField.getStatus(row, col) == VisibleField.MINE_GUESS) ||
+            (visibleField.isUncovered(row, col)))  {   // already has been uncovered
+         return;         
+      }
+      // only choose mine locations once user has opened one square   
+      // but only if we're using random minefield, o.w., we use the same mine locs for every game
+      //                                              (they were set in the constructor)
+      if (!userChoseFirstLocation && isRandomMineField) {  // first time uncovering a square
+         userChoseFirstLocation = true;
+         // doesn't put a mine in the location they chose
+         // (in no-guess mode, false means no board without guesses was found in time, so tell the user)
+         if (!visibleField.getMineField().populateMineField(row, col)) {
+            gameStatusLabel.setText("May need a guess");
+         }
+      }
+      
+      // opens up empty areas
+      boolean isNotAMine = visibleField.uncover(row, col);
+
+      showGameResult(isNotAMine);
+       
+      updateChangedSquaresViews();   // update the views of just the squares that changed in the model
+        
+   }
+   
+   
+   /**
+      Chords the square at (row, col): if it's an opened number with as many mine guesses around it as adjacent mines,
+      opens all its other covered neighbors (see VisibleField chord()).  They are all opened as one move, so the
+      views are only updated once.
+    * @param row  row of the square
+    * @param col  column of the square
+    */
+   private void chordSquare(int row, int col) {
+      
+      boolean isNotAMine = visibleField.chord(row, col);
+      
+      showGameResult(isNotAMine);
+      
+      updateChangedSquaresViews();
+   }
+   
+   
+   /**
+      Updates the status label (and the face on the new game button) if the last move ended the game.
+    * @param isNotAMine  whether the last move didn't uncover a mine
+    */
+   private void showGameResult(boolean isNotAMine) {
+      
+      if (visibleField.isGameOver()) {
+         if (isNotAMine) {
+            // win condition
+            // update statusLabel
+            gameStatusLabel.setText("You won!");
+         }
+         else {  // loss condition
+            newGameButton.setIcon(sadIcon);
+            gameStatusLabel.setText("You lost!");
+         }
+         
+      }
+   }
+   
+   
+   /**
+      Change the status of a covered (i.e, non-opened) square and the display of the number of mines guessed, if
+      appropriate.  See documentation of VisibleField cycleGuess() for details of the states it can go through.
+    * @param row  row of the square
+    * @param col  column of the square
+    */
+   private void changeGuessStatus(int row, int col) {
+      // if the square is uncovered, can't do this operation
+      if (visibleField.isUncovered(row, col)) { return; }
+      // update model
+      visibleField.cycleGuess(row, col);
+      // if went to MINE_GUESS or QUESTION, the number of mine guesses changes (either up or down)
+      if (visibleField.getStatus(row, col) != VisibleField.COVERED) {          
+         int minesLeft = visibleField.numMinesLeft();
+         int displayNum = (minesLeft >= 0) ? minesLeft : 0; // non-neg
+         mineGuessLabel.setText(counterText(displayNum));
+      }
+      // get changed state of square from model, and update the View accordingly
+      // (for such an action, only the one square gets changed)
+      updateChangedSquaresViews();
+   }
+   
+   
+   /**
+      Returns the text of the mine guess counter for a number, making it only the first time, so guessing doesn't
+      make a new string each time.
+    * @param num  the number of mines left to guess
+    * @return its text
+    * PRE: 0 <= num <= numMines
+    */
+   private String counterText(int num) {
+      
+      if (counterTexts[num] == null) {
+         counterTexts[num] = Integer.toString(num);
+      }
+      return counterTexts[num];
+   }
+   
+   
+   /**
+      Set the display properties of a label (SquareView or the stamp used to draw BoardCanvas tiles) to show a
+      square with the given status. 
+    * @param label  the label to set up
+    * @param status  the status of the square, as returned by VisibleField getStatus
+    */
+   private static void setSquareDisplayProperties(JLabel label, int status) {
+      
+      // Set the border to show whether it was already clicked.
+      label.setBorder((status >= 0) ? UNCOVERED_BORDER : COVERED_BORDER);  // REFACTORED 10/10
+      
+      if (status == VisibleField.COVERED) {
+         label.setBackground(null);
+         label.setFont(DEFAULT_FONT);
+         label.setText("");
+      }
+      else if (status == 0) {    // no neighboring mines (empty square)
+         label.setText("");
+      }
+      else if (status == VisibleField.MINE_GUESS) {
+         label.setOpaque(true);
+         label.setBackground(MINE_GUESS_COLOR);
+         label.setText("");  // FIXED BUG 10/10
+      }
+      else if (status == VisibleField.QUESTION) {
+         label.setBackground(null);
+         label.setText("?");
+      }
+      else if (status == VisibleField.MINE) {
+         label.setOpaque(true);
+         label.setBackground(MINE_COLOR);
+         label.setText("");  // FIXED BUG 10/10
+      }
+      else if (status == VisibleField.INCORRECT_GUESS) {            
+         label.setFont(INCORRECT_GUESS_FONT);
+         label.setText("X");
+
+      }
+      else if (status == VisibleField.EXPLODED_MINE) {
+         label.setOpaque(true);
+         label.setBackground(EXPLODED_MINE_COLOR);
+         label.setText("");  // FIXED BUG 10/10
+      }
+      else if (status > 0) {  // status is the number of neighboring mines
+         label.setText(NUMBER_TEXTS[status]);
+      }
+      else {
+         throw new AssertionError(status);
+      }
+   }
+   
+   
    //-------------------------------------------------------------------------------------
    // INNER CLASS SquareListener
    // the Controller (in MVC) class for a square
@@ -271,81 +579,7 @@ class GameBoardPanel extends JPanel {
          Invoked when a mouse button has been pressed in this component.
        */
       public void mousePressed(MouseEvent e) {
-         
-         if (visibleField.isGameOver()) return;  // don't respond to clicks if the game is over
-         
-         if (e.getButton() == MouseEvent.BUTTON1) { // left click
-            openSquare();
-         }
-         else if (e.getButton() == MouseEvent.BUTTON3) {  // right click
-            changeGuessStatus();
-         }
-      }
-      
- 
-      /**
-         Opens this square.  This in turn may recursively open other squares.  If this square has a mine in it
-         or if the recursion results in opening all the non-mine squares, this action can end the game.  
-         If this is the first square to be opened in a "random" game (ie., isRandomMineField is true), 
-         this will trigger the initial placement of the mines before the recursion (and guarantee that
-         no mine is on this square so a user doesn't lose on the first click).
-       */
-      private void openSquare() {
-                              // can't open it when it's a mine guess (user has to right click to "?" state first)
-         if ((visibleField.getStatus(mySquare.getRow(), mySquare.getCol()) == VisibleField.MINE_GUESS) ||
-               (visibleField.isUncovered(mySquare.getRow(), mySquare.getCol())))  {   // already has been uncovered
-            return;         
-         }
-         // only choose mine locations once user has opened one square   
-         // but only if we're using random minefield, o.w., we use the same mine locs for every game
-         //                                              (they were set in the constructor)
-         if (!userChoseFirstLocation && isRandomMineField) {  // first time uncovering a square
-            userChoseFirstLocation = true;
-            // doesn't put a mine in the location they chose
-            visibleField.getMineField().populateMineField(
-                                          mySquare.getRow(), mySquare.getCol());
-         }
-         
-         // recursively opens up empty areas
-         boolean isNotAMine = visibleField.uncover(mySquare.getRow(), mySquare.getCol());
-
-         if (visibleField.isGameOver()) {
-            if (isNotAMine) {
-               // win condition
-               // update statusLabel
-               gameStatusLabel.setText("You won!");
-            }
-            else {  // loss condition
-               newGameButton.setIcon(sadIcon);
-               gameStatusLabel.setText("You lost!");
-            }
-            
-         }
-          
-         updateAllSquaresViews();     // don't know which squares changed, so update view for all squares to match 
-                                      // changes in the model
-         repaint();
-           
-      }
-      
-      /**
-         Change the status of a covered (i.e, non-opened) square and the display of the number of mines guessed, if
-         appropriate.  See documentation of VisibleField cycleGuess() for details of the states it can go through.
-       */
-      private void changeGuessStatus() {
-         // if the square is uncovered, can't do this operation
-         if (visibleField.isUncovered(mySquare.getRow(), mySquare.getCol())) { return; }
-         // update model
-         visibleField.cycleGuess(mySquare.getRow(), mySquare.getCol());
-         // if went to MINE_GUESS or QUESTION, the number of mine guesses changes (either up or down)
-         if (visibleField.getStatus(mySquare.getRow(), mySquare.getCol()) != VisibleField.COVERED) {          
-            int minesLeft = visibleField.numMinesLeft();
-            int displayNum = (minesLeft >= 0) ? minesLeft : 0; // non-neg
-            mineGuessLabel.setText(Integer.toString(displayNum));
-         }
-         // get changed state of square from model, and update the View accordingly
-         // (for such an action, only the one square gets changed)
-         mySquare.updateDisplayProperties();
+         squarePressed(e, mySquare.getRow(), mySquare.getCol());
       }
       
    }
@@ -404,63 +638,206 @@ class GameBoardPanel extends JPanel {
         Update square view based on status of corresponding square in model
        */
       public void updateDisplayProperties() {
-         int status = visibleField.getStatus(myRow, myCol);
-         
-         setSquareBorder();  // REFACTORED 10/10
-         
-         if (status == VisibleField.COVERED) {
-            setBackground(null);
-            setFont(DEFAULT_FONT);
-            setText("");
-         }
-         else if (status == 0) {    // no neighboring mines (empty square)
-            setText("");
-         }
-         else if (status == VisibleField.MINE_GUESS) {
-            setOpaque(true);
-            setBackground(MINE_GUESS_COLOR);
-            setText("");  // FIXED BUG 10/10
-         }
-         else if (status == VisibleField.QUESTION) {
-            setBackground(null);
-            setText("?");
-         }
-         else if (status == VisibleField.MINE) {
-            setOpaque(true);
-            setBackground(MINE_COLOR);
-            setText("");  // FIXED BUG 10/10
-         }
-         else if (status == VisibleField.INCORRECT_GUESS) {            
-            setFont(INCORRECT_GUESS_FONT);
-            setText("X");
+         setSquareDisplayProperties(this, visibleField.getStatus(myRow, myCol));
+      }
+   }
+   //-----------------------------END OF INNER CLASS SquareView --------------------------
 
+
+   
+   //-------------------------------------------------------------------------------------
+   // INNER CLASS BoardCanvas
+   // the View and Controller (in MVC) for the whole board in CANVAS mode
+   private class BoardCanvas extends JComponent implements Scrollable {
+      
+      // one tile image per status, indexed by status - VisibleField.QUESTION (the smallest status value)
+      private static final int NUM_TILES = VisibleField.EXPLODED_MINE - VisibleField.QUESTION + 1;
+      
+      private BufferedImage[] tiles = new BufferedImage[NUM_TILES];
+      private int tileWidth = 0;     // size the tiles were made for (0 = not made yet)
+      private int tileHeight = 0;
+      private int zoom = DEFAULT_ZOOM;   // index into ZOOM_SQUARE_SIZES
+      
+      /**
+         Create the canvas, at the zoom level where each square has the same size a SquareView would have.
+       */
+      public BoardCanvas() {
+         updatePreferredSize();
+         MouseAdapter listener = new MouseAdapter() {
+            public void mousePressed(MouseEvent e) {
+               int row = rowAt(e.getY());
+               int col = colAt(e.getX());
+               if (visibleField.getMineField().inRange(row, col)) {
+                  squarePressed(e, row, col);
+               }
+            }
+            
+            public void mouseWheelMoved(MouseWheelEvent e) {
+               if (e.isControlDown()) {
+                  setZoom(zoom - e.getWheelRotation(), e.getPoint());
+               }
+               else {   // let the scroll pane scroll
+                  JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, 
+                                                                                           BoardCanvas.this);
+                  if (scrollPane != null) {
+                     scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(BoardCanvas.this, e, scrollPane));
+                  }
+               }
+            }
+         };
+         addMouseListener(listener);
+         addMouseWheelListener(listener);
+      }
+      
+      /**
+         Change the zoom level (clamped to the available ones), keeping the board point at anchor (in this
+         component's coordinates) under the same spot of the viewport.
+       */
+      public void setZoom(int newZoom, Point anchor) {
+         newZoom = Math.max(0, Math.min(newZoom, ZOOM_SQUARE_SIZES.length - 1));
+         if (newZoom == zoom) return;
+         int oldPitch = pitchX();
+         zoom = newZoom;
+         updatePreferredSize();
+         revalidate();
+         if (getParent() instanceof JViewport) {
+            JViewport viewport = (JViewport) getParent();
+            Point viewPosition = viewport.getViewPosition();
+            int newPitch = ZOOM_SQUARE_SIZES[zoom] + BORDER_THICKNESS;
+            viewport.validate();   // so the view has its new size before we move it
+            int x = (int) ((long) anchor.x * newPitch / oldPitch) - (anchor.x - viewPosition.x);
+            int y = (int) ((long) anchor.y * newPitch / oldPitch) - (anchor.y - viewPosition.y);
+            int maxX = Math.max(getWidth() - viewport.getWidth(), 0);
+            int maxY = Math.max(getHeight() - viewport.getHeight(), 0);
+            viewport.setViewPosition(new Point(Math.max(0, Math.min(x, maxX)), Math.max(0, Math.min(y, maxY))));
          }
-         else if (status == VisibleField.EXPLODED_MINE) {
-            setOpaque(true);
-            setBackground(EXPLODED_MINE_COLOR);
-            setText("");  // FIXED BUG 10/10
+         repaint();
+      }
+      
+      /**
+         Set the preferred size to fit the whole board at the current zoom level.
+       */
+      private void updatePreferredSize() {
+         int pitch = ZOOM_SQUARE_SIZES[zoom] + BORDER_THICKNESS;
+         setPreferredSize(new Dimension(visibleField.getMineField().numCols() * pitch - BORDER_THICKNESS,
+                                        visibleField.getMineField().numRows() * pitch - BORDER_THICKNESS));
+      }
+      
+      // Scrollable: scroll by a square at a time, or by a viewport at a time (less one square);
+      // stretch to fill the viewport when the board is smaller than it.
+      
+      public Dimension getPreferredScrollableViewportSize() {
+         return getPreferredSize();
+      }
+      
+      public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+         return (orientation == SwingConstants.HORIZONTAL) ? pitchX() : pitchY();
+      }
+      
+      public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+         int extent = (orientation == SwingConstants.HORIZONTAL) ? visibleRect.width : visibleRect.height;
+         return Math.max(extent - getScrollableUnitIncrement(visibleRect, orientation, direction), 1);
+      }
+      
+      public boolean getScrollableTracksViewportWidth() {
+         return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+      }
+      
+      public boolean getScrollableTracksViewportHeight() {
+         return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+      }
+      
+      /**
+         Paint the squares that intersect the clip area, each as the tile for its status.
+       */
+      protected void paintComponent(Graphics g) {
+         long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+         int numRows = visibleField.getMineField().numRows();
+         int numCols = visibleField.getMineField().numCols();
+         int pitchX = pitchX();
+         int pitchY = pitchY();
+         updateTiles(pitchX - BORDER_THICKNESS, pitchY - BORDER_THICKNESS);
+         
+         Rectangle clip = g.getClipBounds();
+         if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
          }
-         else if (status > 0) {  // status is the number of neighboring mines
-            setText(Integer.toString(status));
+         int firstRow = Math.max(rowAt(clip.y), 0);
+         int lastRow = Math.min(rowAt(clip.y + clip.height - 1), numRows - 1);
+         int firstCol = Math.max(colAt(clip.x), 0);
+         int lastCol = Math.min(colAt(clip.x + clip.width - 1), numCols - 1);
+         for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+               BufferedImage tile = tiles[visibleField.getStatus(row, col) - VisibleField.QUESTION];
+               g.drawImage(tile, offsetX() + col * pitchX, offsetY() + row * pitchY, null);
+            }
          }
-         else {
-            throw new AssertionError(status);
+         if (GameMetrics.ENABLED) {
+            GameMetrics.recordPaint(System.nanoTime() - start);
          }
       }
       
+      /**
+         Repaint just the area of the square at (row, col).
+       */
+      public void repaintSquare(int row, int col) {
+         repaint(offsetX() + col * pitchX(), offsetY() + row * pitchY(), pitchX(), pitchY());
+      }
       
       /**
-         Set the border to show whether it was already clicked.
+         Make the tile images again if the square size changed: for each status, paint a label set up like a
+         SquareView with that status into an image.
        */
-      private void setSquareBorder() {
-         if (visibleField.isUncovered(myRow, myCol)) {  
-            setBorder(UNCOVERED_BORDER);  
-         }
-         else {
-            setBorder(COVERED_BORDER);   
+      private void updateTiles(int width, int height) {
+         if (width == tileWidth && height == tileHeight) return;
+         tileWidth = width;
+         tileHeight = height;
+         for (int status = VisibleField.QUESTION; status <= VisibleField.EXPLODED_MINE; status++) {
+            JLabel stamp = new JLabel();
+            stamp.setHorizontalAlignment(SwingConstants.CENTER);
+            stamp.setFont(DEFAULT_FONT);
+            setSquareDisplayProperties(stamp, status);
+            if (!stamp.isBackgroundSet()) {
+               stamp.setBackground(getBackground());   // a SquareView would inherit it from the board panel
+            }
+            stamp.setSize(width, height);
+            BufferedImage tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D tileGraphics = tile.createGraphics();
+            stamp.paint(tileGraphics);
+            tileGraphics.dispose();
+            tiles[status - VisibleField.QUESTION] = tile;
          }
       }
+      
+      // like GridLayout: squares share the width and height evenly and the board is centered
+      // (but never smaller than the zoom level, in case the component hasn't been resized yet)
+      
+      private int pitchX() {
+         return Math.max((getWidth() + BORDER_THICKNESS) / visibleField.getMineField().numCols(), 
+                         ZOOM_SQUARE_SIZES[zoom] + BORDER_THICKNESS);
+      }
+      
+      private int pitchY() {
+         return Math.max((getHeight() + BORDER_THICKNESS) / visibleField.getMineField().numRows(), 
+                         ZOOM_SQUARE_SIZES[zoom] + BORDER_THICKNESS);
+      }
+      
+      private int offsetX() {
+         return (getWidth() + BORDER_THICKNESS - pitchX() * visibleField.getMineField().numCols()) / 2;
+      }
+      
+      private int offsetY() {
+         return (getHeight() + BORDER_THICKNESS - pitchY() * visibleField.getMineField().numRows()) / 2;
+      }
+      
+      private int rowAt(int y) {
+         return Math.floorDiv(y - offsetY(), pitchY());
+      }
+      
+      private int colAt(int x) {
+         return Math.floorDiv(x - offsetX(), pitchX());
+      }
    }
-   //-----------------------------END OF INNER CLASS SquareView --------------------------
+   //-----------------------------END OF INNER CLASS BoardCanvas --------------------------
 
 }
\ No newline at end of file
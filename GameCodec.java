@@ -0,0 +1,202 @@
+import java.nio.ByteBuffer;
+
+/**
+ *  GameCodec
+ *  A compact binary format for a whole game (a VisibleField and its MineField), for saving games and for the records
+ *  of a GameArchive.  A record is:
+ *
+ *     offset  size                     contents
+ *        0      4                      numRows
+ *        4      4                      numCols
+ *        8      4                      numMines()
+ *       12      4                      numMineGuesses()
+ *       16      4                      numSafeSquaresOpened()
+ *       20      1                      flags: GAME_OVER_FLAG, HAS_SEED_FLAG
+ *       21      3                      reserved (0)
+ *       24      8                      the seed of the mines (0 if there isn't one)
+ *       32      8 * ceil(cells / 64)   the mines, one bit per square, row-major (as MineField.exportMines)
+ *        .      ceil(cells / 2)        the statuses, one nibble per square (status + 3), low nibble first
+ *
+ *  where cells = numRows * numCols, and all the numbers are big-endian (ByteBuffer's default order).  An expert game
+ *  (16x30) takes 32 + 64 + 240 = 336 bytes.  Nothing else is kept: the counters VisibleField keeps for speed are
+ *  worked out again when a game is decoded.  GameView reads a record in place without decoding it.
+ */
+
+public class GameCodec {
+
+   static final int ROWS_OFFSET = 0;
+   static final int COLS_OFFSET = 4;
+   static final int MINES_OFFSET = 8;
+   static final int GUESSES_OFFSET = 12;
+   static final int OPENED_OFFSET = 16;
+   static final int FLAGS_OFFSET = 20;
+   static final int SEED_OFFSET = 24;
+   static final int HEADER_SIZE = 32;
+
+   static final int GAME_OVER_FLAG = 1;
+   static final int HAS_SEED_FLAG = 2;
+
+   static final int STATUS_BIAS = 3;    //added to a status so every status fits in a nibble (QUESTION = -3 becomes 0)
+
+
+   /**
+    *  Returns the size in bytes of the record of a game with the given dimensions.
+    *
+    *  @param numRows  number of rows of the game
+    *  @param numCols  number of columns of the game
+    *  @return the size of its record
+    */
+   public static int encodedSize(int numRows, int numCols) {
+
+      int numCells = numRows * numCols;
+      return HEADER_SIZE + 8 * mineWords(numCells) + (numCells + 1) / 2;
+   }
+
+
+   /**
+    *  Writes the record of a game at the position of dst, and moves the position past it.
+    *
+    *  @param game  the game to save
+    *  @param dst  the buffer to write to
+    *  PRE: dst.remaining() >= encodedSize(numRows, numCols) of the game
+    */
+   public static void encode(VisibleField game, ByteBuffer dst) {
+
+      MineField mineField = game.getMineField();
+      int numRows = mineField.numRows();
+      int numCols = mineField.numCols();
+      int numCells = numRows * numCols;
+      int flags = (game.isGameOver() ? GAME_OVER_FLAG : 0) | (mineField.hasSeed() ? HAS_SEED_FLAG : 0);
+
+      dst.putInt(numRows);
+      dst.putInt(numCols);
+      dst.putInt(mineField.numMines());
+      dst.putInt(game.numMineGuesses());
+      dst.putInt(game.numSafeSquaresOpened());
+      dst.put((byte) flags);
+      dst.put((byte) 0).put((byte) 0).put((byte) 0);
+      dst.putLong(mineField.hasSeed() ? mineField.getSeed() : 0L);
+
+      long[] mines = new long[mineWords(numCells)];
+      mineField.exportMines(mines, 0);
+      for (long word : mines) {
+         dst.putLong(word);
+      }
+
+      for (int cell = 0; cell < numCells; cell += 2) {
+         int low = game.getStatus(cell / numCols, cell % numCols) + STATUS_BIAS;
+         int high = (cell + 1 < numCells) ? game.getStatus((cell + 1) / numCols, (cell + 1) % numCols) + STATUS_BIAS : 0;
+         dst.put((byte) (low | (high << 4)));
+      }
+   }
+
+
+   /**
+    *  Reads the record of a game at the position of src, and moves the position past it.  The game is restored
+    *  with a new MineField (made with the 3-arg constructor, with the saved mines) and a new VisibleField.
+    *
+    *  @param src  the buffer to read from
+    *  @return the game
+    */
+   public static VisibleField decode(ByteBuffer src) {
+
+      int start = src.position();
+      MineField mineField = new MineField(src.getInt(start + ROWS_OFFSET), src.getInt(start + COLS_OFFSET),
+                                          src.getInt(start + MINES_OFFSET));
+      VisibleField game = new VisibleField(mineField);
+      decode(src, game);
+      game.clearChangedCells();
+      return game;
+   }
+
+
+   /**
+    *  Reads the record of a game at the position of src into an existing game, replacing its mines and its whole
+    *  state, and moves the position past it.  The squares whose status changes are reported as changed by the game
+    *  (see VisibleField.nextChangedCell).  numMines() of the minefield is not changed.
+    *
+    *  @param src  the buffer to read from
+    *  @param game  the game to restore the record into
+    *  PRE: the record has the same dimensions as game
+    */
+   public static void decode(ByteBuffer src, VisibleField game) {
+
+      int numRows = src.getInt();
+      int numCols = src.getInt();
+      src.getInt();   //numMines, already the one of the game's minefield
+      int numMinesGuessed = src.getInt();
+      int numNotMineOpened = src.getInt();
+      int flags = src.get();
+      src.position(src.position() + 3);
+      long seed = src.getLong();
+      int numCells = numRows * numCols;
+
+      MineField mineField = game.getMineField();
+      long[] mines = new long[mineWords(numCells)];
+      for (int i = 0; i < mines.length; i++) {
+         mines[i] = src.getLong();
+      }
+      mineField.importMines(mines, 0);
+      if ((flags & HAS_SEED_FLAG) != 0) {
+         mineField.restoreSeed(seed);
+      }
+
+      for (int cell = 0; cell < numCells; cell += 2) {
+         int packed = src.get();
+         restoreStatus(game, cell, (packed & 0xF) - STATUS_BIAS);
+         if (cell + 1 < numCells) {
+            restoreStatus(game, cell + 1, ((packed >>> 4) & 0xF) - STATUS_BIAS);
+         }
+      }
+      game.restoreCounters(numMinesGuessed, numNotMineOpened, (flags & GAME_OVER_FLAG) != 0);
+   }
+
+
+   /**
+    *  Returns the record of a game as a new byte array.
+    *
+    *  @param game  the game to save
+    *  @return its record
+    */
+   public static byte[] toBytes(VisibleField game) {
+
+      MineField mineField = game.getMineField();
+      ByteBuffer buffer = ByteBuffer.allocate(encodedSize(mineField.numRows(), mineField.numCols()));
+      encode(game, buffer);
+      return buffer.array();
+   }
+
+
+   /**
+    *  Restores a game from a record made by toBytes.
+    *
+    *  @param bytes  the record
+    *  @return the game
+    */
+   public static VisibleField fromBytes(byte[] bytes) {
+
+      return decode(ByteBuffer.wrap(bytes));
+   }
+
+
+   /**
+      Number of longs holding the mine bits of numCells squares.
+    */
+   static int mineWords(int numCells) {
+
+      return (numCells + 63) >>> 6;
+   }
+
+
+   /**
+      Restores one status, if it's not the one the square already has.
+    */
+   private static void restoreStatus(VisibleField game, int cell, int status) {
+
+      int numCols = game.getMineField().numCols();
+      if (game.getStatus(cell / numCols, cell % numCols) != status) {
+         game.restoreStatus(cell, status);
+      }
+   }
+
+}
@@ -0,0 +1,409 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ *  GameMetrics
+ *  Opt-in instrumentation of the game engine: VisibleField, MineField, NoGuessGenerator and GameBoardPanel report
+ *  what they do here, when ENABLED.  It's off unless the JVM is started with -Dminesweeper.metrics=true.  ENABLED is
+ *  a static final constant and every call site is guarded by it, so when it's off the JIT removes the
+ *  instrumentation altogether (no clock reads, no counters), and reading it sets up nothing else: the histograms
+ *  and JFR are only loaded when something is recorded or read.
+ *
+ *  Each Metric is a LatencyHistogram (log-sized buckets, exact count, sum and maximum):
+ *     UNCOVER_NANOS       time of an uncover, chord or uncoverAll move
+ *     CELLS_PER_UNCOVER   squares opened by such a move (its sum is the total number of squares opened)
+ *     FLOOD_DEPTH         breadth first layers of the flood fill of such a move
+ *     POPULATE_NANOS      time of populateMineField(row, col), no-guess or not
+ *     POPULATE_ATTEMPTS   boards generated by it (1, unless no-guess boards were thrown away)
+ *     SWEEP_NANOS         time of the end-of-game update of the display, won or lost
+ *     GUI_UPDATE_NANOS    time GameBoardPanel takes to update its views after a click
+ *     PAINT_NANOS         time of a paint of the BoardCanvas
+ *
+ *  They can be read through snapshot(), periodically with startSnapshots(), and over JMX (GameMetricsMXBean,
+ *  registered when the class is loaded).  Every record also commits a JFR event (in the "MineSweeper" category, e.g.,
+ *  minesweeper.Uncover), so the moves can be lined up with GC pauses in a flight recording.
+ *
+ *  Recording allocates nothing (AllocationTester gives 0 with metrics on too), so the metrics don't add garbage of
+ *  their own to the GC activity they're compared with.  The only exception is the JFR events: one is created for
+ *  each record while a flight recording has that event enabled.
+ */
+
+public final class GameMetrics {
+
+   public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+   /** The metrics recorded, each one a LatencyHistogram. */
+   public enum Metric {
+      UNCOVER_NANOS, CELLS_PER_UNCOVER, FLOOD_DEPTH, POPULATE_NANOS, POPULATE_ATTEMPTS, SWEEP_NANOS,
+      GUI_UPDATE_NANOS, PAINT_NANOS
+   }
+
+   //Only ENABLED is set up with the class, since every move reads it.  The histograms and the JFR event types (which
+   //load most of jdk.jfr) are in holder classes of their own, set up the first time they're used.
+   static {
+      if (ENABLED) {
+         try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(),
+                                                                     new ObjectName("minesweeper:type=GameMetrics"));
+         }
+         catch (JMException e) {
+            System.err.println("GameMetrics: could not register the MXBean: " + e);
+         }
+      }
+   }
+
+
+   private GameMetrics() {
+   }
+
+
+   /**
+    *  Returns the histogram of a metric, as it is being recorded.
+    *
+    *  @param metric  the metric
+    *  @return its histogram
+    */
+   public static LatencyHistogram histogram(Metric metric) {
+
+      return Histograms.ALL[metric.ordinal()];
+   }
+
+
+   /**
+    *  Returns a copy of all the metrics recorded so far.
+    *
+    *  @return the snapshot
+    */
+   public static Snapshot snapshot() {
+
+      return new Snapshot(false);
+   }
+
+
+   /**
+    *  Returns a copy of all the metrics recorded so far, and starts recording them again from nothing, so the next
+    *  snapshot only covers what happens after this one.  No value recorded meanwhile is lost (see
+    *  LatencyHistogram.copyAndReset), so consecutive snapshots add up to everything recorded.
+    *
+    *  @return the snapshot
+    */
+   public static Snapshot snapshotAndReset() {
+
+      return new Snapshot(true);
+   }
+
+
+   /**
+    *  Starts taking a snapshot (with snapshotAndReset) every periodMillis milliseconds on a daemon thread, and
+    *  handing it to listener, e.g., to log it or send it to a monitoring system.
+    *
+    *  @param periodMillis  the time between two snapshots
+    *  @param listener  what to do with each snapshot
+    *  @return closing it stops the snapshots
+    */
+   public static AutoCloseable startSnapshots(long periodMillis, Consumer<Snapshot> listener) {
+
+      ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+         Thread thread = new Thread(task, "GameMetrics snapshots");
+         thread.setDaemon(true);
+         return thread;
+      });
+      timer.scheduleAtFixedRate(() -> listener.accept(snapshotAndReset()), periodMillis, periodMillis,
+                                TimeUnit.MILLISECONDS);
+      return timer::shutdown;
+   }
+
+
+   /**
+    *  Records an uncover, chord or uncoverAll move (called by VisibleField).
+    *
+    *  @param row  row of the square uncovered (-1 for several squares)
+    *  @param col  column of the square uncovered (-1 for several squares)
+    *  @param cellsOpened  number of squares opened
+    *  @param floodDepth  number of breadth first layers of the flood fill
+    *  @param isNotAMine  false iff a mine was uncovered
+    *  @param nanos  time taken
+    */
+   static void recordUncover(int row, int col, int cellsOpened, int floodDepth, boolean isNotAMine, long nanos) {
+
+      histogram(Metric.UNCOVER_NANOS).record(nanos);
+      histogram(Metric.CELLS_PER_UNCOVER).record(cellsOpened);
+      histogram(Metric.FLOOD_DEPTH).record(floodDepth);
+      if (Events.UNCOVER.isEnabled()) {
+         UncoverEvent event = new UncoverEvent();
+         event.row = row;
+         event.col = col;
+         event.cellsOpened = cellsOpened;
+         event.floodDepth = floodDepth;
+         event.hitMine = !isNotAMine;
+         event.time = nanos;
+         event.commit();
+      }
+   }
+
+
+   /**
+    *  Records populateMineField(row, col) (called by MineField and NoGuessGenerator).
+    *
+    *  @param attempts  number of boards generated
+    *  @param noGuess  whether it made a no-guess board
+    *  @param nanos  time taken
+    */
+   static void recordPopulate(int attempts, boolean noGuess, long nanos) {
+
+      histogram(Metric.POPULATE_NANOS).record(nanos);
+      histogram(Metric.POPULATE_ATTEMPTS).record(attempts);
+      if (Events.POPULATE.isEnabled()) {
+         PopulateEvent event = new PopulateEvent();
+         event.attempts = attempts;
+         event.noGuess = noGuess;
+         event.time = nanos;
+         event.commit();
+      }
+   }
+
+
+   /**
+    *  Records an end-of-game sweep (called by VisibleField).
+    *
+    *  @param won  whether the game was won
+    *  @param nanos  time taken
+    */
+   static void recordSweep(boolean won, long nanos) {
+
+      histogram(Metric.SWEEP_NANOS).record(nanos);
+      if (Events.SWEEP.isEnabled()) {
+         SweepEvent event = new SweepEvent();
+         event.won = won;
+         event.time = nanos;
+         event.commit();
+      }
+   }
+
+
+   /**
+    *  Records the update of the GUI after a click (called by GameBoardPanel).
+    *
+    *  @param squares  number of squares updated
+    *  @param nanos  time taken
+    */
+   static void recordGuiUpdate(int squares, long nanos) {
+
+      histogram(Metric.GUI_UPDATE_NANOS).record(nanos);
+      if (Events.GUI_UPDATE.isEnabled()) {
+         GuiUpdateEvent event = new GuiUpdateEvent();
+         event.squares = squares;
+         event.time = nanos;
+         event.commit();
+      }
+   }
+
+
+   /**
+    *  Records a paint of the board canvas (called by GameBoardPanel).
+    *
+    *  @param nanos  time taken
+    */
+   static void recordPaint(long nanos) {
+
+      histogram(Metric.PAINT_NANOS).record(nanos);
+      if (Events.PAINT.isEnabled()) {
+         PaintEvent event = new PaintEvent();
+         event.time = nanos;
+         event.commit();
+      }
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS Snapshot
+   // a copy of every metric at one time
+   public static final class Snapshot {
+
+      private final long timeMillis = System.currentTimeMillis();
+      private final LatencyHistogram[] histograms = new LatencyHistogram[Histograms.ALL.length];
+
+      private Snapshot(boolean reset) {
+         for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = reset ? Histograms.ALL[i].copyAndReset() : Histograms.ALL[i].copy();
+         }
+      }
+
+      /**
+         Returns when the snapshot was taken, as System.currentTimeMillis().
+       */
+      public long timeMillis() {
+         return timeMillis;
+      }
+
+      /**
+         Returns the histogram of a metric, as it was when the snapshot was taken.
+       */
+      public LatencyHistogram histogram(Metric metric) {
+         return histograms[metric.ordinal()];
+      }
+
+      /**
+         Returns one line per metric with its summary (see LatencyHistogram.toString).
+       */
+      public String toString() {
+         StringBuilder text = new StringBuilder();
+         for (Metric metric : Metric.values()) {
+            text.append(metric).append(": ").append(histogram(metric)).append(System.lineSeparator());
+         }
+         return text.toString();
+      }
+   }
+   //------ END OF NESTED CLASS Snapshot -------------------------------------------------
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS Histograms
+   // the histogram of each Metric, created when one is first recorded or read
+   private static final class Histograms {
+
+      static final LatencyHistogram[] ALL = new LatencyHistogram[Metric.values().length];
+
+      static {
+         for (int i = 0; i < ALL.length; i++) {
+            ALL[i] = new LatencyHistogram();
+         }
+      }
+   }
+   //------ END OF NESTED CLASS Histograms -----------------------------------------------
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS Events
+   // the JFR event types, looked up on the first record (only made when ENABLED).  Each one is checked before its
+   // event is created, so nothing is allocated unless a flight recording wants the event.
+   private static final class Events {
+
+      static final EventType UNCOVER = EventType.getEventType(UncoverEvent.class);
+      static final EventType POPULATE = EventType.getEventType(PopulateEvent.class);
+      static final EventType SWEEP = EventType.getEventType(SweepEvent.class);
+      static final EventType GUI_UPDATE = EventType.getEventType(GuiUpdateEvent.class);
+      static final EventType PAINT = EventType.getEventType(PaintEvent.class);
+   }
+   //------ END OF NESTED CLASS Events ---------------------------------------------------
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS MXBean
+   // reads the live histograms for JMX
+   private static class MXBean implements GameMetricsMXBean {
+
+      public long getUncoverCount() {
+         return histogram(Metric.UNCOVER_NANOS).count();
+      }
+
+      public long getCellsOpened() {
+         return histogram(Metric.CELLS_PER_UNCOVER).sum();
+      }
+
+      public long getUncoverP50Nanos() {
+         return histogram(Metric.UNCOVER_NANOS).percentile(0.50);
+      }
+
+      public long getUncoverP99Nanos() {
+         return histogram(Metric.UNCOVER_NANOS).percentile(0.99);
+      }
+
+      public long getMaxFloodDepth() {
+         return histogram(Metric.FLOOD_DEPTH).max();
+      }
+
+      public long getPopulateCount() {
+         return histogram(Metric.POPULATE_ATTEMPTS).count();
+      }
+
+      public long getPopulateRetries() {
+         LatencyHistogram attempts = histogram(Metric.POPULATE_ATTEMPTS);
+         return attempts.sum() - attempts.count();
+      }
+
+      public long getSweepP99Nanos() {
+         return histogram(Metric.SWEEP_NANOS).percentile(0.99);
+      }
+
+      public long getGuiUpdateP99Nanos() {
+         return histogram(Metric.GUI_UPDATE_NANOS).percentile(0.99);
+      }
+
+      public long getPaintP99Nanos() {
+         return histogram(Metric.PAINT_NANOS).percentile(0.99);
+      }
+
+      public String getSummary() {
+         return snapshot().toString();
+      }
+
+      public void reset() {
+         for (LatencyHistogram histogram : Histograms.ALL) {
+            histogram.reset();
+         }
+      }
+   }
+   //------ END OF NESTED CLASS MXBean ---------------------------------------------------
+
+
+   //-------------------------------------------------------------------------------------
+   // JFR EVENTS
+
+   @Name("minesweeper.Uncover")
+   @Label("Uncover")
+   @Category("MineSweeper")
+   static class UncoverEvent extends Event {
+      @Label("Row") int row;
+      @Label("Column") int col;
+      @Label("Squares Opened") int cellsOpened;
+      @Label("Flood Depth") int floodDepth;
+      @Label("Hit Mine") boolean hitMine;
+      @Label("Time") @Timespan(Timespan.NANOSECONDS) long time;
+   }
+
+   @Name("minesweeper.Populate")
+   @Label("Populate Minefield")
+   @Category("MineSweeper")
+   static class PopulateEvent extends Event {
+      @Label("Attempts") int attempts;
+      @Label("No Guess") boolean noGuess;
+      @Label("Time") @Timespan(Timespan.NANOSECONDS) long time;
+   }
+
+   @Name("minesweeper.Sweep")
+   @Label("End of Game Sweep")
+   @Category("MineSweeper")
+   static class SweepEvent extends Event {
+      @Label("Won") boolean won;
+      @Label("Time") @Timespan(Timespan.NANOSECONDS) long time;
+   }
+
+   @Name("minesweeper.GuiUpdate")
+   @Label("GUI Update")
+   @Category("MineSweeper")
+   static class GuiUpdateEvent extends Event {
+      @Label("Squares") int squares;
+      @Label("Time") @Timespan(Timespan.NANOSECONDS) long time;
+   }
+
+   @Name("minesweeper.Paint")
+   @Label("Board Paint")
+   @Category("MineSweeper")
+   static class PaintEvent extends Event {
+      @Label("Time") @Timespan(Timespan.NANOSECONDS) long time;
+   }
+   //------ END OF JFR EVENTS ------------------------------------------------------------
+
+}
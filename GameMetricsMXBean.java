@@ -0,0 +1,45 @@
+/**
+ *  GameMetricsMXBean
+ *  The management interface GameMetrics registers (as "minesweeper:type=GameMetrics") when metrics are enabled, so
+ *  the counters and latencies can be watched with JConsole or any JMX client.  Times are in nanoseconds, and the
+ *  percentiles are as LatencyHistogram.percentile reports them.
+ */
+
+public interface GameMetricsMXBean {
+
+   /** Number of uncover moves (uncover, chord and uncoverAll). */
+   long getUncoverCount();
+
+   /** Number of squares opened by all the uncover moves. */
+   long getCellsOpened();
+
+   /** Median time of an uncover move. */
+   long getUncoverP50Nanos();
+
+   /** 99th percentile of the time of an uncover move. */
+   long getUncoverP99Nanos();
+
+   /** Largest number of breadth first layers of a flood fill. */
+   long getMaxFloodDepth();
+
+   /** Number of minefields populated by populateMineField(row, col). */
+   long getPopulateCount();
+
+   /** Number of boards generated and thrown away by no-guess populates. */
+   long getPopulateRetries();
+
+   /** 99th percentile of the time of an end-of-game sweep. */
+   long getSweepP99Nanos();
+
+   /** 99th percentile of the time the GUI takes to update its views after a click. */
+   long getGuiUpdateP99Nanos();
+
+   /** 99th percentile of the time of a paint of the board canvas. */
+   long getPaintP99Nanos();
+
+   /** A summary of every metric, one per line. */
+   String getSummary();
+
+   /** Forgets everything recorded so far. */
+   void reset();
+}
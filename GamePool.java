@@ -0,0 +1,131 @@
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  GamePool
+ *  A thread-safe pool of games (a VisibleField with its own random MineField, made with the 3-arg constructor) that
+ *  all have the same dimensions and number of mines, so a server starting many short games can reuse them instead of
+ *  allocating a board for each one.  acquire() hands out a game ready to play (everything covered, no mines placed
+ *  yet, default settings), and release() takes it back, resetting it.  Since VisibleField.resetGameDisplay only visits the parts of
+ *  the board that were played on, a game that ended after a few clicks is cheap to recycle, whatever its size.
+ *
+ *  The idle games are kept in a lock-free deque, most recently released first (its memory is more likely to still
+ *  be in a cache).  At most maxIdle games are kept; the others are left to the garbage collector.  A pooled game
+ *  must only be used by one thread at a time, by whoever acquired it, and not at all once it is released.  Releasing
+ *  a game that is already waiting in the pool is an error (it would be handed out twice).
+ */
+
+public class GamePool {
+
+   private final int numRows;
+   private final int numCols;
+   private final int numMines;
+   private final int maxIdle;
+   private final ConcurrentLinkedDeque<VisibleField> idle = new ConcurrentLinkedDeque<>();
+   private final Set<VisibleField> idleSet = ConcurrentHashMap.newKeySet();   //the same games, to catch a second release
+   private final AtomicInteger numIdle = new AtomicInteger();      //size of idle (the deque's size() is O(n))
+   private final AtomicInteger numCreated = new AtomicInteger();
+
+
+   /**
+    *  Create an empty pool of games with the given dimensions and number of mines.
+    *
+    *  @param numRows  number of rows of the games, must be positive
+    *  @param numCols  number of columns of the games, must be positive
+    *  @param numMines  number of mines of the games
+    *  @param maxIdle  the most games kept for reuse
+    *  PRE: 0 <= numMines < numRows * numCols and maxIdle >= 0
+    */
+   public GamePool(int numRows, int numCols, int numMines, int maxIdle) {
+
+      this.numRows = numRows;
+      this.numCols = numCols;
+      this.numMines = numMines;
+      this.maxIdle = maxIdle;
+   }
+
+
+   /**
+    *  Returns a game from the pool, or a new one if the pool is empty.  The game is as a new one would be: all the
+    *  squares covered, no mines on its minefield (place them with populateMineField on the first click), nothing
+    *  reported as changed, no journal, no-guess mode off and a random generator of its own (nothing the previous
+    *  user of the game set carries over).
+    *
+    *  @return a game for the caller's exclusive use until it's released
+    */
+   public VisibleField acquire() {
+
+      VisibleField game = idle.pollFirst();
+      if (game == null) {
+         numCreated.incrementAndGet();
+         return new VisibleField(new MineField(numRows, numCols, numMines));
+      }
+      idleSet.remove(game);
+      numIdle.decrementAndGet();
+      return game;
+   }
+
+
+   /**
+    *  Gives a game back to the pool.  It's reset before it's kept, on the calling thread, and its settings are put
+    *  back to a new game's (see acquire).  If the pool already keeps maxIdle games, it's dropped instead.
+    *
+    *  @param game  a game acquired from this pool (or one with the same dimensions and number of mines), that the
+    *               caller won't use anymore
+    *  @throws IllegalArgumentException  if the game doesn't have the pool's dimensions and number of mines
+    *  @throws IllegalStateException  if the game is already in the pool (released twice)
+    */
+   public void release(VisibleField game) {
+
+      MineField mineField = game.getMineField();
+      if (mineField.numRows() != numRows || mineField.numCols() != numCols || mineField.numMines() != numMines) {
+         throw new IllegalArgumentException("game is " + mineField.numRows() + "x" + mineField.numCols() + "/"
+                                            + mineField.numMines() + ", pool is " + numRows + "x" + numCols + "/"
+                                            + numMines);
+      }
+      if (!idleSet.add(game)) {
+         throw new IllegalStateException("game released twice");
+      }
+      if (numIdle.get() >= maxIdle) {
+         idleSet.remove(game);
+         return;
+      }
+      game.setJournal(null);
+      mineField.setNoGuess(false);
+      mineField.setRandomGenerator(new SplittableRandom());
+      game.resetGameDisplay();
+      game.clearChangedCells();
+      if (numIdle.incrementAndGet() > maxIdle) {   //another thread filled the pool in the meantime
+         numIdle.decrementAndGet();
+         idleSet.remove(game);
+         return;
+      }
+      idle.offerFirst(game);
+   }
+
+
+   /**
+    *  Returns the number of games waiting in the pool.
+    *
+    *  @return the number of idle games
+    */
+   public int numIdle() {
+
+      return numIdle.get();
+   }
+
+
+   /**
+    *  Returns the number of games the pool had to create because it was empty, since it was made.
+    *
+    *  @return the number of games created
+    */
+   public int numCreated() {
+
+      return numCreated.get();
+   }
+
+}
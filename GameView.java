@@ -0,0 +1,197 @@
+import java.nio.ByteBuffer;
+
+/**
+ *  GameView
+ *  A read-only view of one game record (see GameCodec) inside a ByteBuffer, e.g., a memory-mapped GameArchive.  It
+ *  reads the fields straight from the buffer, so looking at a game doesn't copy or allocate anything; a view is a
+ *  flyweight that can be moved from record to record (see GameArchive.view).  toVisibleField() makes a real game out
+ *  of it, to play or replay it.
+ */
+
+public class GameView {
+
+   private ByteBuffer buffer;
+   private int offset;
+   private int numCols;
+   private int minesStart;    //absolute index in buffer of the mine bits
+   private int statusStart;   //absolute index in buffer of the status nibbles
+
+
+   /**
+    *  Create a view that isn't on any record yet (see moveTo).
+    */
+   public GameView() {
+   }
+
+
+   /**
+    *  Moves this view to the record starting at the given index of a buffer.
+    *
+    *  @param buffer  the buffer holding the record
+    *  @param offset  the index of the first byte of the record
+    *  @return this view
+    */
+   public GameView moveTo(ByteBuffer buffer, int offset) {
+
+      this.buffer = buffer;
+      this.offset = offset;
+      this.numCols = buffer.getInt(offset + GameCodec.COLS_OFFSET);
+      this.minesStart = offset + GameCodec.HEADER_SIZE;
+      this.statusStart = minesStart + 8 * GameCodec.mineWords(numRows() * numCols);
+      return this;
+   }
+
+
+   /**
+    *  Returns the number of rows of the game.
+    *
+    *  @return the number of rows
+    */
+   public int numRows() {
+
+      return buffer.getInt(offset + GameCodec.ROWS_OFFSET);
+   }
+
+
+   /**
+    *  Returns the number of columns of the game.
+    *
+    *  @return the number of columns
+    */
+   public int numCols() {
+
+      return numCols;
+   }
+
+
+   /**
+    *  Returns the number of mines of the game (MineField.numMines()).
+    *
+    *  @return the number of mines
+    */
+   public int numMines() {
+
+      return buffer.getInt(offset + GameCodec.MINES_OFFSET);
+   }
+
+
+   /**
+    *  Returns the number of mine guesses (VisibleField.numMineGuesses()) when the game was saved.
+    *
+    *  @return the number of mine guesses
+    */
+   public int numMineGuesses() {
+
+      return buffer.getInt(offset + GameCodec.GUESSES_OFFSET);
+   }
+
+
+   /**
+    *  Returns the number of non-mine squares opened (VisibleField.numSafeSquaresOpened()) when the game was saved.
+    *
+    *  @return the number of safe squares opened
+    */
+   public int numSafeSquaresOpened() {
+
+      return buffer.getInt(offset + GameCodec.OPENED_OFFSET);
+   }
+
+
+   /**
+    *  Returns whether the game was over when it was saved.
+    *
+    *  @return whether the game was over
+    */
+   public boolean isGameOver() {
+
+      return (buffer.get(offset + GameCodec.FLAGS_OFFSET) & GameCodec.GAME_OVER_FLAG) != 0;
+   }
+
+
+   /**
+    *  Returns whether the game was won: it's over, and every non-mine square was opened.
+    *
+    *  @return whether the game was won
+    */
+   public boolean isWon() {
+
+      return isGameOver() && numSafeSquaresOpened() == numRows() * numCols - numMines();
+   }
+
+
+   /**
+    *  Returns whether the mines of the game were placed from a seed (see MineField.hasSeed()).
+    *
+    *  @return whether there is a seed
+    */
+   public boolean hasSeed() {
+
+      return (buffer.get(offset + GameCodec.FLAGS_OFFSET) & GameCodec.HAS_SEED_FLAG) != 0;
+   }
+
+
+   /**
+    *  Returns the seed the mines of the game were placed from.
+    *
+    *  @return the seed
+    *  PRE: hasSeed()
+    */
+   public long getSeed() {
+
+      return buffer.getLong(offset + GameCodec.SEED_OFFSET);
+   }
+
+
+   /**
+    *  Returns whether there is a mine at (row, col).
+    *
+    *  @param row  row of the square
+    *  @param col  column of the square
+    *  @return whether it has a mine
+    *  PRE: (row, col) is in range
+    */
+   public boolean hasMine(int row, int col) {
+
+      int bit = row * numCols + col;
+      return ((buffer.getLong(minesStart + 8 * (bit >>> 6)) >>> bit) & 1L) != 0;
+   }
+
+
+   /**
+    *  Returns the status (see VisibleField.getStatus) of the square at (row, col) when the game was saved.
+    *
+    *  @param row  row of the square
+    *  @param col  column of the square
+    *  @return the status
+    *  PRE: (row, col) is in range
+    */
+   public int getStatus(int row, int col) {
+
+      int cell = row * numCols + col;
+      int packed = buffer.get(statusStart + (cell >>> 1));
+      return ((packed >>> ((cell & 1) << 2)) & 0xF) - GameCodec.STATUS_BIAS;
+   }
+
+
+   /**
+    *  Returns the size in bytes of the record.
+    *
+    *  @return the size of the record
+    */
+   public int encodedSize() {
+
+      return GameCodec.encodedSize(numRows(), numCols);
+   }
+
+
+   /**
+    *  Decodes the record into a new game (see GameCodec.decode).
+    *
+    *  @return the game
+    */
+   public VisibleField toVisibleField() {
+
+      return GameCodec.decode(buffer.duplicate().position(offset));
+   }
+
+}
@@ -0,0 +1,701 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+   HotPathBenchmark -- measures the time per call of the MineField and VisibleField hot paths, on square boards
+   from 9x9 (plus the 16x30 expert board) up to 4096x4096:
+      populate/<density>     populateMineField(row, col, true, seed) at 5%, 12% and 20.6% (expert) mines
+      adjacent/<where>       numAdjacentMines for interior, edge and corner locations
+      cycleGuess             cycleGuess, going round COVERED -> MINE_GUESS -> QUESTION -> COVERED
+      uncover/<board>        the flood fill of the first click, on an empty board, a sparse one (5%) and an expert one
+      reset                  resetGameDisplay after a first click
+      lossSweep, winSweep    the last uncover of a lost game and of a won game, which update the whole display
+
+   Each benchmark is a Case (see newCase), which the JMH benchmarks (src/jmh/java, built with "mvn -P jmh package")
+   measure too.  This main is the way to run them without a build: every benchmark on every board is measured in
+   FORKS JVMs of its own (like JMH forks), so what the JIT learnt from one can't change the results of the next.  In
+   each one it is run for WARMUP_ITERATIONS iterations (to let the JIT compile it) and then MEASURED_ITERATIONS more,
+   each one at least ITERATION_NANOS of timed calls.  The median over the forks of the mean time per call is
+   reported, with the fastest and slowest fork, since the results of two JVMs differ more than two iterations of one
+   do.  Whatever a call needs set up first (e.g., covering the board
+   again before a flood fill) is not timed, and the results of the calls are added to a sink so they can't be
+   optimised away.
+
+   The results can be saved, and a later run checked against them: with -check, the run fails (exit status 1) if any
+   benchmark is clearly more than TOLERANCE slower than in the saved file (see check), so it can gate a new release
+   or JDK.  The gate is only as steady as the machine: run both on the same idle one, or use the JMH benchmarks.
+   hotpath-baseline.txt holds the results of a full run, made with -save.
+
+   To run it from the command line:
+      java HotPathBenchmark [-max maxSide] [-save resultsFile] [-check baselineFile]
+ */
+
+public class HotPathBenchmark {
+
+   /** The benchmarks, in the order they are run. */
+   public static final String[] BENCHMARKS = {"populate/5%", "populate/12%", "populate/expert", "adjacent/interior",
+      "adjacent/edge", "adjacent/corner", "uncover/empty", "uncover/sparse", "uncover/expert", "cycleGuess", "reset",
+      "lossSweep", "winSweep"};
+
+   private static final int[] SIDES = {9, 64, 256, 1024, 4096};     // plus the 16x30 expert board
+   private static final double SPARSE = 0.05;
+   private static final double EXPERT = 99.0 / 480;
+   private static final long SEED = 20240601L;
+   private static final int FORKS = 3;
+   private static final int WARMUP_ITERATIONS = 3;
+   private static final int MEASURED_ITERATIONS = 5;
+   private static final long ITERATION_NANOS = 100_000_000L;
+   private static final long MAX_ITERATION_NANOS = 500_000_000L;      // wall time, setup included
+   private static final int BATCH_CELLS = 1 << 20;                     // number of locations set up per batch
+   private static final double TOLERANCE = 0.20;
+
+   private static long sink = 0;                                      // results of the calls measured
+
+   private final Map<String, double[]> results = new HashMap<>();
+   private final List<String> names = new ArrayList<>();
+
+
+   public static void main(String[] args) throws IOException, InterruptedException {
+
+      if (args.length == 4 && args[0].equals("-fork")) {      // a forked JVM measuring one benchmark
+         measure(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+         return;
+      }
+      int maxSide = 4096;
+      Path save = null;
+      Path check = null;
+      for (int i = 0; i + 1 < args.length; i += 2) {
+         if (args[i].equals("-max")) {
+            maxSide = Integer.parseInt(args[i + 1]);
+         }
+         else if (args[i].equals("-save")) {
+            save = Path.of(args[i + 1]);
+         }
+         else if (args[i].equals("-check")) {
+            check = Path.of(args[i + 1]);
+         }
+      }
+      String header = "Java " + System.getProperty("java.version") + ", "
+                      + Runtime.getRuntime().availableProcessors() + " processors";
+      System.out.println(header);
+
+      HotPathBenchmark benchmark = new HotPathBenchmark();
+      benchmark.runBoard(16, 30);
+      for (int side : SIDES) {
+         if (side <= maxSide) {
+            benchmark.runBoard(side, side);
+         }
+      }
+      if (save != null) {
+         benchmark.save(save, header);
+      }
+      if (check != null && !benchmark.check(check)) {
+         System.exit(1);
+      }
+   }
+
+
+   /**
+      Runs all the benchmarks on boards of the given size, each in FORKS new JVMs, and keeps the results.
+    */
+   private void runBoard(int numRows, int numCols) throws IOException, InterruptedException {
+
+      String board = numRows + "x" + numCols;
+      System.out.println(board + ":");
+      for (String name : BENCHMARKS) {
+         double[] means = runForks(name, numRows, numCols);
+         if (means == null) {
+            System.out.println("   " + board + " " + name + ": skipped");
+            continue;
+         }
+         System.out.printf("   %-28s %,16.1f ns/op  (forks %,.1f to %,.1f)%n", board + " " + name,
+                           means[FORKS / 2], means[0], means[FORKS - 1]);
+         names.add(board + " " + name);
+         results.put(board + " " + name, means);
+      }
+   }
+
+
+   /**
+      Measures one benchmark in FORKS new JVMs (with the same JVM options and class path as this one).  Returns the
+      mean time per call of each fork, sorted, or null if the benchmark can't be run on this board.
+    */
+   private static double[] runForks(String name, int numRows, int numCols) throws IOException, InterruptedException {
+
+      List<String> command = new ArrayList<>();
+      command.add(ProcessHandle.current().info().command().orElse("java"));
+      command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(HotPathBenchmark.class.getName());
+      command.addAll(List.of("-fork", name, Integer.toString(numRows), Integer.toString(numCols)));
+      double[] means = new double[FORKS];
+      for (int f = 0; f < FORKS; f++) {
+         String[] fields = fork(command, numRows + "x" + numCols + " " + name).split("\t");
+         if (fields[0].equals("skipped")) {
+            return null;
+         }
+         means[f] = Double.parseDouble(fields[0]);
+      }
+      Arrays.sort(means);
+      return means;
+   }
+
+
+   /**
+      Runs a forked JVM and returns the line it printed.
+    */
+   private static String fork(List<String> command, String name) throws IOException, InterruptedException {
+
+      Process fork = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+      String result;
+      try (BufferedReader out = new BufferedReader(new InputStreamReader(fork.getInputStream()))) {
+         result = out.readLine();
+      }
+      if (fork.waitFor() != 0 || result == null) {
+         throw new IllegalStateException(name + " failed");
+      }
+      return result;
+   }
+
+
+   /**
+      Measures one benchmark (in a forked JVM): WARMUP_ITERATIONS then MEASURED_ITERATIONS iterations, each making
+      batches of calls until it has timed at least ITERATION_NANOS (or taken MAX_ITERATION_NANOS in all).  A batch
+      is callsPerBatch() calls on one Case, or, for a Case that has to be set up before each call, one call on each of
+      a number of Cases set up beforehand.  Prints the mean time per call, or "skipped" if the benchmark can't be run
+      on this board.
+    */
+   private static void measure(String name, int numRows, int numCols) {
+
+      int numCells = numRows * numCols;
+      Case[] cases = new Case[1];
+      try {
+         cases[0] = newCase(name, numRows, numCols);
+      }
+      catch (IllegalArgumentException e) {
+         System.out.println("skipped");
+         return;
+      }
+      if (cases[0].needsSetup()) {
+         cases = new Case[Math.max(1, Math.min(256, BATCH_CELLS / numCells))];
+         for (int i = 0; i < cases.length; i++) {
+            cases[i] = newCase(name, numRows, numCols);
+         }
+      }
+      int callsPerBatch = cases[0].needsSetup() ? cases.length : cases[0].callsPerBatch();
+
+      double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+      for (int iteration = 0; iteration < WARMUP_ITERATIONS + MEASURED_ITERATIONS; iteration++) {
+         long timed = 0;
+         long ops = 0;
+         long iterationStart = System.nanoTime();
+         while (timed < ITERATION_NANOS && System.nanoTime() - iterationStart < MAX_ITERATION_NANOS) {
+            timed += runBatch(cases);
+            ops += callsPerBatch;
+         }
+         if (iteration >= WARMUP_ITERATIONS) {
+            nanosPerOp[iteration - WARMUP_ITERATIONS] = (double) timed / ops;
+         }
+      }
+
+      double mean = 0;
+      for (double x : nanosPerOp) {
+         mean += x / MEASURED_ITERATIONS;
+      }
+      System.out.println(mean + "\t(sink " + (sink & 1) + ")");
+   }
+
+
+   /**
+      Makes one batch of calls (see measure) and returns the nanoseconds they took.
+    */
+   private static long runBatch(Case[] cases) {
+
+      long sum = 0;
+      long start;
+      if (cases[0].needsSetup()) {
+         for (Case c : cases) {
+            c.run();
+         }
+         start = System.nanoTime();
+         for (Case c : cases) {
+            sum += c.getAsLong();
+         }
+      }
+      else {
+         Case c = cases[0];
+         int calls = c.callsPerBatch();
+         start = System.nanoTime();
+         for (int i = 0; i < calls; i++) {
+            sum += c.getAsLong();
+         }
+      }
+      long time = System.nanoTime() - start;
+      sink += sum;
+      return time;
+   }
+
+
+   /**
+      Writes the results, a header comment then one "name<TAB>median<TAB>fastest<TAB>slowest" line per benchmark (in
+      ns/op, over the forks).
+    */
+   private void save(Path file, String header) throws IOException {
+
+      StringBuilder text = new StringBuilder("# ").append(header).append(System.lineSeparator());
+      for (String name : names) {
+         double[] means = results.get(name);
+         text.append(name).append('\t').append(means[FORKS / 2]).append('\t').append(means[0]).append('\t')
+             .append(means[FORKS - 1]).append(System.lineSeparator());
+      }
+      Files.writeString(file, text);
+   }
+
+
+   /**
+      Compares the results with the ones saved in a baseline file, printing every benchmark that regressed: whose
+      fastest fork is more than TOLERANCE slower than the slowest fork of the baseline, so that a difference within
+      the noise between JVMs doesn't count.  A benchmark that looks regressed is measured again in FORKS more JVMs
+      first, and only counts if its fastest fork of all is still too slow, so a burst of noise on the machine doesn't
+      fail the check either.  Returns whether there is no regression.
+    */
+   private boolean check(Path baseline) throws IOException, InterruptedException {
+
+      boolean passed = true;
+      for (String line : Files.readAllLines(baseline)) {
+         String[] fields = line.split("\t");
+         if (fields.length < 2 || !results.containsKey(fields[0])) {
+            continue;
+         }
+         String name = fields[0];
+         double slowestBefore = Double.parseDouble(fields[fields.length - 1]);   //the median, in an older file
+         double fastest = results.get(name)[0];
+         if (fastest > slowestBefore * (1 + TOLERANCE)) {
+            String[] board = name.substring(0, name.indexOf(' ')).split("x");
+            double[] again = runForks(name.substring(name.indexOf(' ') + 1), Integer.parseInt(board[0]),
+                                      Integer.parseInt(board[1]));
+            fastest = Math.min(fastest, again[0]);
+         }
+         if (fastest > slowestBefore * (1 + TOLERANCE)) {
+            System.out.printf("REGRESSION %s: %,.1f ns/op at best, was %,.1f ns/op at worst%n", name, fastest,
+                              slowestBefore);
+            passed = false;
+         }
+      }
+      System.out.println(passed ? "No regression against " + baseline : "Regressions against " + baseline);
+      return passed;
+   }
+
+
+   /**
+      Creates one benchmark on a board of the given size, with its mines placed from a fixed seed, so each run
+      measures the same work.  Public so the JMH benchmarks can use it too.
+
+      @param name  one of BENCHMARKS
+      @param numRows  number of rows of the board
+      @param numCols  number of columns of the board
+      @return the benchmark, ready to be called (after run(), if it needsSetup())
+      @throws IllegalArgumentException  if name isn't a benchmark, or can't be run on this board (winSweep on a board
+                                        where every safe location is next to an empty one)
+    */
+   public static Case newCase(String name, int numRows, int numCols) {
+
+      int numCells = numRows * numCols;
+      int centerRow = numRows / 2;
+      int centerCol = numCols / 2;
+      switch (name) {
+         case "populate/5%":
+            return new Populate(numRows, numCols, SPARSE);
+         case "populate/12%":
+            return new Populate(numRows, numCols, 0.12);
+         case "populate/expert":
+            return new Populate(numRows, numCols, EXPERT);
+         case "adjacent/interior":
+            return new Adjacent(seededField(numRows, numCols, EXPERT), interiorCells(numRows, numCols));
+         case "adjacent/edge":
+            return new Adjacent(seededField(numRows, numCols, EXPERT), edgeCells(numRows, numCols));
+         case "adjacent/corner":
+            return new Adjacent(seededField(numRows, numCols, EXPERT),
+                                new int[] {0, numCols - 1, numCells - numCols, numCells - 1});
+         case "uncover/empty":
+            return new FirstClick(seededField(numRows, numCols, 0));
+         case "uncover/sparse":
+            return new FirstClick(seededField(numRows, numCols, SPARSE));
+         case "uncover/expert":
+            return new FirstClick(seededField(numRows, numCols, EXPERT));
+         case "cycleGuess":
+            return new CycleGuess(seededField(numRows, numCols, EXPERT));
+         case "reset":
+            return new Reset(seededField(numRows, numCols, EXPERT));
+         case "lossSweep":
+            return new LossSweep(seededField(numRows, numCols, EXPERT));
+         case "winSweep":
+            return new WinSweep(seededField(numRows, numCols, EXPERT));
+         default:
+            throw new IllegalArgumentException("no benchmark " + name);
+      }
+   }
+
+
+   /**
+      Number of mines for a board of numCells locations at the given density, leaving room for the 3x3 safe zone.
+    */
+   private static int numMines(int numCells, double density) {
+      return (int) Math.min(Math.round(numCells * density), numCells - 9);
+   }
+
+
+   /**
+      A minefield with mines placed from SEED, with none around the middle.
+    */
+   private static MineField seededField(int numRows, int numCols, double density) {
+      MineField mineField = new MineField(numRows, numCols, numMines(numRows * numCols, density));
+      mineField.populateMineField(numRows / 2, numCols / 2, true, SEED);
+      return mineField;
+   }
+
+
+   /**
+      All the locations not on the edge of the board (all of them if there is none), in row-major order.
+    */
+   private static int[] interiorCells(int numRows, int numCols) {
+      if (numRows < 3 || numCols < 3) {
+         return edgeCells(numRows, numCols);
+      }
+      int[] cells = new int[Math.min((numRows - 2) * (numCols - 2), 4096)];
+      int i = 0;
+      for (int row = 1; row < numRows - 1 && i < cells.length; row++) {
+         for (int col = 1; col < numCols - 1 && i < cells.length; col++) {
+            cells[i++] = row * numCols + col;
+         }
+      }
+      return cells;
+   }
+
+
+   /**
+      The locations on the edges of the board but not in its corners (at most 4096 of them).
+    */
+   private static int[] edgeCells(int numRows, int numCols) {
+      List<Integer> cells = new ArrayList<>();
+      for (int col = 1; col < numCols - 1; col++) {
+         cells.add(col);
+         cells.add((numRows - 1) * numCols + col);
+      }
+      for (int row = 1; row < numRows - 1; row++) {
+         cells.add(row * numCols);
+         cells.add(row * numCols + numCols - 1);
+      }
+      return cells.stream().limit(4096).mapToInt(Integer::intValue).toArray();
+   }
+
+
+   /**
+      Whether a location has a neighbor without a mine and without adjacent mines.
+    */
+   private static boolean nextToEmpty(MineField mineField, int cell) {
+      int numCols = mineField.numCols();
+      int row = cell / numCols;
+      int col = cell % numCols;
+      for (int adjRow = row - 1; adjRow <= row + 1; adjRow++) {
+         for (int adjCol = col - 1; adjCol <= col + 1; adjCol++) {
+            if (mineField.inRange(adjRow, adjCol) && !mineField.hasMine(adjRow, adjCol)
+                  && mineField.numAdjacentMines(adjRow, adjCol) == 0 && (adjRow != row || adjCol != col)) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+
+   /**
+      One benchmark on one board.  getAsLong() makes the call measured and returns something computed from its
+      result (so it can't be optimised away).  If needsSetup(), run() has to be called, untimed, before each call
+      (e.g., to cover the board again); otherwise the call can just be repeated.  The JMH benchmarks only see it
+      through these two interfaces, since classes in a package can't name a class of the default package.
+    */
+   public abstract static class Case implements LongSupplier, Runnable {
+
+      /** Sets up the next call, if needsSetup(). */
+      public void run() {
+      }
+
+      /** Whether run() has to be called before each call. */
+      public boolean needsSetup() {
+         return false;
+      }
+
+      /** Number of calls to time together, for a benchmark without setup (so the clock isn't read too often). */
+      public int callsPerBatch() {
+         return 1;
+      }
+   }
+
+
+   /**
+      populateMineField, with a new seed for each call.
+    */
+   private static class Populate extends Case {
+
+      private final MineField mineField;
+      private long seed = SEED;
+
+      public Populate(int numRows, int numCols, double density) {
+         mineField = new MineField(numRows, numCols, numMines(numRows * numCols, density));
+      }
+
+      public long getAsLong() {
+         mineField.populateMineField(mineField.numRows() / 2, mineField.numCols() / 2, true, seed++);
+         return mineField.numMineLocations();
+      }
+
+      public int callsPerBatch() {
+         return Math.max(1, Math.min(256, BATCH_CELLS / (mineField.numRows() * mineField.numCols())));
+      }
+   }
+
+
+   /**
+      numAdjacentMines, on each of the given locations in turn.
+    */
+   private static class Adjacent extends Case {
+
+      private final MineField mineField;
+      private final int[] rows;
+      private final int[] cols;
+      private int next = 0;
+
+      public Adjacent(MineField mineField, int[] cells) {
+         this.mineField = mineField;
+         rows = new int[cells.length];
+         cols = new int[cells.length];
+         for (int i = 0; i < cells.length; i++) {
+            rows[i] = cells[i] / mineField.numCols();
+            cols[i] = cells[i] % mineField.numCols();
+         }
+      }
+
+      public long getAsLong() {
+         int i = next;
+         next = (i + 1 == rows.length) ? 0 : i + 1;
+         return mineField.numAdjacentMines(rows[i], cols[i]);
+      }
+
+      public int callsPerBatch() {
+         return 4096;
+      }
+   }
+
+
+   /**
+      cycleGuess, on each of the first 1024 locations in turn, so each goes round its three states.
+    */
+   private static class CycleGuess extends Case {
+
+      private final VisibleField field;
+      private final int numCols;
+      private final int numGuessed;
+      private int next = 0;
+
+      public CycleGuess(MineField mineField) {
+         field = new VisibleField(mineField);
+         numCols = mineField.numCols();
+         numGuessed = Math.min(mineField.numRows() * numCols, 1024);
+      }
+
+      public long getAsLong() {
+         int cell = next;
+         next = (cell + 1 == numGuessed) ? 0 : cell + 1;
+         field.cycleGuess(cell / numCols, cell % numCols);
+         return field.numMinesLeft();
+      }
+
+      public int callsPerBatch() {
+         return 3 * numGuessed;
+      }
+   }
+
+
+   /**
+      A benchmark that plays on a game of its own, started again from scratch before each call.
+    */
+   private abstract static class GameCase extends Case {
+
+      protected final Game game;
+      protected final int centerRow;
+      protected final int centerCol;
+
+      protected GameCase(MineField mineField) {
+         game = new Game(mineField);
+         centerRow = mineField.numRows() / 2;
+         centerCol = mineField.numCols() / 2;
+      }
+
+      public void run() {
+         game.restart();
+      }
+
+      public boolean needsSetup() {
+         return true;
+      }
+   }
+
+
+   /**
+      The first click of a game in the middle of the board (which has no mine around it).
+    */
+   private static class FirstClick extends GameCase {
+
+      public FirstClick(MineField mineField) {
+         super(mineField);
+      }
+
+      public long getAsLong() {
+         game.field.uncover(centerRow, centerCol);
+         return game.field.numSafeSquaresOpened();
+      }
+   }
+
+
+   /**
+      resetGameDisplay after a first click.
+    */
+   private static class Reset extends GameCase {
+
+      public Reset(MineField mineField) {
+         super(mineField);
+      }
+
+      public void run() {
+         game.restart();
+         game.field.uncover(centerRow, centerCol);
+      }
+
+      public long getAsLong() {
+         game.field.resetGameDisplay();
+         return game.field.numCoveredSquares();
+      }
+   }
+
+
+   /**
+      Uncovering a mine after a first click, with a mine guess on one location in 64.
+    */
+   private static class LossSweep extends GameCase {
+
+      private final int mineRow;
+      private final int mineCol;
+
+      public LossSweep(MineField mineField) {
+         super(mineField);
+         int mine = mineField.getMineLocation(0);
+         mineRow = mine / mineField.numCols();
+         mineCol = mine % mineField.numCols();
+      }
+
+      public void run() {
+         int numCols = game.mineField.numCols();
+         game.restart();
+         game.field.uncover(centerRow, centerCol);
+         for (int cell = 1; cell < game.mineField.numRows() * numCols; cell += 64) {
+            if (!game.field.isUncovered(cell / numCols, cell % numCols)) {
+               game.field.cycleGuess(cell / numCols, cell % numCols);
+            }
+         }
+      }
+
+      public long getAsLong() {
+         return game.field.uncover(mineRow, mineCol) ? 1 : 0;
+      }
+   }
+
+
+   /**
+      Uncovering the last safe location of a game, with all the others already opened.  The last one must not be next
+      to a location without adjacent mines, or opening the others would flood into it.
+    */
+   private static class WinSweep extends GameCase {
+
+      private final int lastRow;
+      private final int lastCol;
+      private final int[] others;
+
+      public WinSweep(MineField mineField) {
+         super(mineField);
+         int numCols = mineField.numCols();
+         int numCells = mineField.numRows() * numCols;
+         int last = -1;
+         for (int cell = numCells - 1; cell >= 0 && last < 0; cell--) {
+            if (!mineField.hasMine(cell / numCols, cell % numCols) && !nextToEmpty(mineField, cell)) {
+               last = cell;
+            }
+         }
+         if (last < 0) {
+            throw new IllegalArgumentException("no location to win on");
+         }
+         lastRow = last / numCols;
+         lastCol = last % numCols;
+         others = new int[numCells - mineField.numMines() - 1];
+         int numOthers = 0;
+         for (int cell = 0; cell < numCells; cell++) {
+            if (cell != last && !mineField.hasMine(cell / numCols, cell % numCols)) {
+               others[numOthers++] = cell;
+            }
+         }
+      }
+
+      public void run() {
+         game.restart();
+         game.field.uncoverAll(others);
+      }
+
+      public long getAsLong() {
+         game.field.uncover(lastRow, lastCol);
+         return game.field.isGameOver() ? 1 : 0;
+      }
+   }
+
+
+   /**
+      A game on its own copy of a minefield, that can be started again from scratch without allocating anything.
+    */
+   private static class Game {
+
+      private final long[] mines;
+      private final MineField mineField;
+      private final VisibleField field;
+
+      /**
+         Copies the mines of the given minefield.
+       */
+      public Game(MineField original) {
+         mines = new long[GameCodec.mineWords(original.numRows() * original.numCols())];
+         original.exportMines(mines, 0);
+         mineField = new MineField(original.numRows(), original.numCols(), original.numMines());
+         field = new VisibleField(mineField);
+         restart();
+      }
+
+      /**
+         Covers the whole board again, and puts the mines back (resetGameDisplay removes them).
+       */
+      public void restart() {
+         field.resetGameDisplay();
+         mineField.importMines(mines, 0);
+         field.clearChangedCells();
+      }
+   }
+
+}
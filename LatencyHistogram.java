@@ -0,0 +1,210 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  LatencyHistogram
+ *  A thread-safe histogram of non-negative long values (e.g., nanoseconds, or numbers of squares), with log-sized
+ *  buckets like an HdrHistogram: the values below SUB_BUCKETS have a bucket each, and every power of two above that
+ *  is split into SUB_BUCKETS equal buckets, so any value is known to within 1 / SUB_BUCKETS (12.5%) and the whole
+ *  range of long fits in a few hundred counters.  Recording a value is a few bit operations and three atomic adds,
+ *  and never allocates.  The count, sum and maximum are exact.
+ *
+ *  Reading it while other threads record gives a consistent enough view for monitoring, but not an atomic one (e.g.,
+ *  count() may already include a value whose bucket isn't counted yet).
+ */
+
+public class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+   private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+   private final LongAdder count = new LongAdder();
+   private final LongAdder sum = new LongAdder();
+   private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+
+   /**
+    *  Records a value.
+    *
+    *  @param value  the value, negative values are counted as 0
+    */
+   public void record(long value) {
+
+      long v = Math.max(value, 0);
+      counts.incrementAndGet(bucket(v));
+      count.increment();
+      sum.add(v);
+      max.accumulate(v);
+   }
+
+
+   /**
+    *  Returns the number of values recorded.
+    *
+    *  @return the count
+    */
+   public long count() {
+
+      return count.sum();
+   }
+
+
+   /**
+    *  Returns the sum of the values recorded.
+    *
+    *  @return the sum
+    */
+   public long sum() {
+
+      return sum.sum();
+   }
+
+
+   /**
+    *  Returns the mean of the values recorded (0 if there is none).
+    *
+    *  @return the mean
+    */
+   public double mean() {
+
+      long n = count();
+      return (n == 0) ? 0 : (double) sum() / n;
+   }
+
+
+   /**
+    *  Returns the largest value recorded (0 if there is none).
+    *
+    *  @return the maximum
+    */
+   public long max() {
+
+      return max.get();
+   }
+
+
+   /**
+    *  Returns a value that at least the given fraction of the values recorded are at or below: the top of the
+    *  bucket holding that percentile (but never more than max()).  0 if nothing was recorded.
+    *
+    *  @param fraction  the percentile, as a fraction (e.g., 0.99)
+    *  @return the value of the percentile
+    *  PRE: 0 <= fraction <= 1
+    */
+   public long percentile(double fraction) {
+
+      long total = 0;
+      for (int b = 0; b < NUM_BUCKETS; b++) {
+         total += counts.get(b);
+      }
+      long rank = Math.max(1, (long) Math.ceil(fraction * total));
+      long seen = 0;
+      for (int b = 0; b < NUM_BUCKETS; b++) {
+         seen += counts.get(b);
+         if (seen >= rank) {
+            return Math.min(bucketTop(b), max());
+         }
+      }
+      return 0;
+   }
+
+
+   /**
+    *  Returns a copy of this histogram, e.g., to keep the values of one period.
+    *
+    *  @return the copy
+    */
+   public LatencyHistogram copy() {
+
+      LatencyHistogram copy = new LatencyHistogram();
+      for (int b = 0; b < NUM_BUCKETS; b++) {
+         copy.counts.set(b, counts.get(b));
+      }
+      copy.count.add(count());
+      copy.sum.add(sum());
+      copy.max.accumulate(max());
+      return copy;
+   }
+
+
+   /**
+    *  Returns a copy of this histogram and forgets its values, e.g., to report one period and start the next.  Each
+    *  counter is read and cleared in one atomic step, so a value recorded meanwhile by another thread is never lost:
+    *  it's counted in the copy or left for the next period.  (A value can be split between the two, e.g., in the
+    *  copy's count() but the next period's buckets; the totals over all periods stay exact.)
+    *
+    *  @return the copy
+    */
+   public LatencyHistogram copyAndReset() {
+
+      LatencyHistogram copy = new LatencyHistogram();
+      for (int b = 0; b < NUM_BUCKETS; b++) {
+         copy.counts.set(b, counts.getAndSet(b, 0));
+      }
+      copy.count.add(count.sumThenReset());
+      copy.sum.add(sum.sumThenReset());
+      copy.max.accumulate(max.getThenReset());
+      return copy;
+   }
+
+
+   /**
+    *  Forgets all the values recorded.  Values recorded at the same time by other threads may be partly kept.
+    */
+   public void reset() {
+
+      for (int b = 0; b < NUM_BUCKETS; b++) {
+         counts.set(b, 0);
+      }
+      count.reset();
+      sum.reset();
+      max.reset();
+   }
+
+
+   /**
+    *  Returns the count, mean, 50th, 90th and 99th percentiles and maximum, on one line.
+    *
+    *  @return the summary
+    */
+   public String toString() {
+
+      return String.format("count %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+                           count(), mean(), percentile(0.50), percentile(0.90), percentile(0.99), max());
+   }
+
+
+   /**
+      The bucket of a value: the value itself below SUB_BUCKETS, otherwise its power of two and the next
+      SUB_BUCKET_BITS bits below its highest bit.
+    */
+   private static int bucket(long value) {
+
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+   }
+
+
+   /**
+      The largest value that goes in a bucket.
+    */
+   private static long bucketTop(int bucket) {
+
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+      int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      long sub = bucket % SUB_BUCKETS;
+      long bottom = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+      long width = 1L << (exponent - SUB_BUCKET_BITS);
+      return bottom + (width - 1);
+   }
+
+}
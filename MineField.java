@@ -1,11 +1,30 @@
-import java.util.Random;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 /** 
  *  MineField
  *  class with locations of mines for a game.
  *  This class is mutable, because we sometimes need to change it once it's created.
- *  mutators: populateMineField, resetEmpty
+ *  mutators: populateMineField, resetEmpty, setNoGuess
  *  includes convenience method to tell the number of mines adjacent to a location.
+ *
+ *  Random mine placement uses a pluggable java.util.random.RandomGenerator (see setRandomGenerator).  For
+ *  reproducible boards use populateMineField(row, col, safeZone, seed): the same seed, dimensions, number of mines
+ *  and safe location always produce the same board.  To generate boards on several threads, give each thread
+ *  its own minefield with a generator split off a common one (see seededGenerator).
+ *
+ *  The mines are stored as a bit board: one bit per location in a flat long[], row-major, with a one-location
+ *  border of always-empty bits around the field, so neighbor lookups never need a range check.
+ *  Approximate heap footprint of the mine storage (64-bit JVM, compressed oops, 16 byte array headers):
+ *     boolean[][] (previous representation):  16 + 4 * numRows + numRows * (16 + numCols) bytes (each rounded up to 8)
+ *     long[] bit board:                       16 + 8 * (numRows + 2) * ceil((numCols + 2) / 64) bytes
+ *  e.g. 9x9: 344 vs 104 bytes, 16x30: 848 vs 160 bytes, 1000x1000: 1,020,016 vs 128,272 bytes.
+ *  By default the field also keeps a byte per location with the cached adjacent mine counts; a "compact"
+ *  minefield (see the 4-arg constructor) leaves that out and counts neighbors from the bit board instead.
  */
 
 public class MineField {
@@ -17,15 +36,37 @@ public class MineField {
    *   numRows records the number of rows of mine field and must > 0.
    *   numCols records the number of columns of mine field and must > 0.
    *   numMines records the total number of mines of mine field and must > 0.
+   *   wordsPerRow = ceil((numCols + 2) / 64), and mineBits has (numRows + 2) * wordsPerRow words.
+   *   (row, col) has a mine iff bit (col + 1) of row (row + 1) in mineBits is set; all the border bits are 0.
+   *   adjacentCounts is null for a compact minefield, otherwise adjacentCounts[row * numCols + col] always
+   *   equals the number of mines adjacent to (row, col).
+   *   minePositions[0..numMinePositions-1] holds the location (row * numCols + col) of every mine, each once.
    */
    
+   private static final RandomGeneratorFactory<RandomGenerator> SEEDED_GENERATOR_FACTORY = 
+      RandomGeneratorFactory.of("L64X128MixRandom");
+   private static final int TO_STRING_MAX_ROWS = 64;     //toString only shows this many rows and columns of mines;
+   private static final int TO_STRING_MAX_COLS = 64;     //use dump to see the whole field.
+   private static final int DUMP_BUFFER_SIZE = 8192;     //bytes dump(OutputStream) collects before each write.
+   private static final int SPARSE_RESET_RATIO = 1024;   //resetEmpty removes mines one by one below 1 per this many locations.
+   
    // <put instance variables here>
-   private boolean [][] mineData;
+   private long [] mineBits;
+   private int wordsPerRow = 0;
    private int numRows = 0;
    private int numCols = 0;
    private int numMines = 0;
    private int numRam = 0;             //keeps track of number of mines we add in random mine field when calling populateMineField() method
-   private Random ran = new Random();     
+   private RandomGenerator ran = new SplittableRandom();     //not shared between minefields, so no contention.
+   private byte [] adjacentCounts;     //cached result of numAdjacentMines for every cell, in row-major order.
+   private int [] safeCells = new int[9];  //locations (row * numCols + col) populateMineField must keep free, ascending.
+   private int numSafeCells = 0;
+   private int [] minePositions;       //locations of all the mines currently on the field, in the order they were added.
+   private int numMinePositions = 0;
+   private int board3BV = -1;          //3BV of the current mines, -1 if it has to be computed again.
+   private boolean noGuess = false;    //whether populateMineField(row, col) only makes boards solvable without guessing.
+   private long seed = 0;              //the seed of the current mines, if they were placed from one (hasSeed).
+   private boolean hasSeed = false;
    
    /**
     *  Create a minefield with same dimensions as the given array, and populate it with the mines in the array
@@ -41,8 +82,12 @@ public class MineField {
                       
       this.numRows = mineData.length;
       this.numCols = mineData[0].length;
-      this.mineData = defensiveCopy(mineData); // make a defensive copy from the 2D array passed in.
-      this.numMines = getTotalNumMines();      // call private method to check number of mines(iterate and check true counts).
+      this.mineBits = createEmptyMineField();
+      copyMines(mineData);                     // copy the 2D array passed in into the bit board.
+      this.numMines = getTotalNumMines();      // call private method to check number of mines(count the bits set).
+      this.adjacentCounts = new byte[numRows * numCols];
+      this.minePositions = new int[numMines];
+      buildMineIndexes();
    }
    
    
@@ -54,46 +99,163 @@ public class MineField {
     *  @param numRows  number of rows this minefield will have, must be positive
     *  @param numCols  number of columns this minefield will have, must be positive
     *  @param numMines   number of mines this minefield will have,  once we populate it.
-    *  PRE: numRows > 0 and numCols > 0 and 0 <= numMines < (1/3 of total number of field locations). 
+    *  PRE: numRows > 0 and numCols > 0 and 0 <= numMines < (total number of field locations). 
     */
    public MineField(int numRows, int numCols, int numMines) {
                       
+      this(numRows, numCols, numMines, false);
+   }
+   
+   
+   /**
+    *  Create an empty minefield like the 3-arg constructor does, optionally in compact mode.  A compact minefield
+    *  only keeps the bit board (about one bit per location), and numAdjacentMines counts the neighbors from it
+    *  with a few word shifts and a popcount instead of reading a cached table.  Use it when holding many 
+    *  minefields in memory at once.
+    *
+    *  @param numRows  number of rows this minefield will have, must be positive
+    *  @param numCols  number of columns this minefield will have, must be positive
+    *  @param numMines   number of mines this minefield will have,  once we populate it.
+    *  @param compact  whether to leave out the table of adjacent mine counts
+    *  PRE: numRows > 0 and numCols > 0 and 0 <= numMines < (total number of field locations). 
+    */
+   public MineField(int numRows, int numCols, int numMines, boolean compact) {
+                      
       this.numRows = numRows;
       this.numCols = numCols;
       this.numMines = numMines;               //use the parameter numMInes passed in as the "may-have" number of mines.
-      this.mineData = createEmptyMineField(); //default set to mine field full of false, can be populated later.     
+      this.mineBits = createEmptyMineField(); //default set to mine field with no bits set, can be populated later.     
+      if (!compact){
+         this.adjacentCounts = new byte[numRows * numCols]; //no mines yet, so every count is 0.
+      }
+      this.minePositions = new int[numMines];
    }
    
 
    /**
       Removes any current mines on the minefield, and puts numMines() mines in random locations on the minefield,
-      ensuring that no mine is placed at (row, col).
+      ensuring that no mine is placed at (row, col).  Every other location is equally likely to get a mine.
+      In no-guess mode (see setNoGuess) the board is instead chosen by a NoGuessGenerator: the 3x3 area around
+      (row, col) is kept free and the game can be won from there without guessing, unless the generator gives up
+      (see NoGuessGenerator.populate), which it says by returning false.
       
       @param row the row of the location to avoid placing a mine
       @param col the column of the location to avoid placing a mine
-      PRE: inRange(row, col) and numMines() < (1/3 * numRows() * numCols())
+      @return false iff no-guess mode is on but the board placed may need guessing
+      PRE: inRange(row, col) and numMines() < numRows() * numCols() (numRows() * numCols() - 8 in no-guess mode)
     */
-   public void populateMineField(int row, int col) {
+   public boolean populateMineField(int row, int col) {
             
-      resetEmpty();
-      
-      //Avoid putting a mine in the position that it is being clicked on, also avoid a position that already has a mine.
-      //Here we use the random generator to give out the position we want to add a mine at.
-      while(numRam < numMines()){
-         int ranRow = ran.nextInt(numRows());
-         int ranCol = ran.nextInt(numCols());
-         
-         //add a mine in random mine field by random number generated if (1) it is not the cell we are uncovering, and
-         //(2) the cell we are going to put a mine does NOT have a mine. Keep counting the number of mines we added and
-         //keep add new mine until the number of mines added reach the maximum number of mines we can have.
-         if ((ranRow != row && ranCol != col) && (!hasMine(ranRow, ranCol))){ 
-            mineData[ranRow][ranCol] = true;
-            numRam ++;     
-         }
-         else{
-            continue;
-         }      
+      if (noGuess){
+         return new NoGuessGenerator().populate(this, row, col);
       }
+      if (GameMetrics.ENABLED){
+         long start = System.nanoTime();
+         populateMineField(row, col, false);
+         GameMetrics.recordPopulate(1, false, System.nanoTime() - start);
+      }
+      else{
+         populateMineField(row, col, false);
+      }
+      return true;
+   }
+   
+   
+   /**
+      Sets whether populateMineField(row, col) only makes boards that can be solved without guessing from (row, col).
+      The other populateMineField methods are not affected.  It only works up to NoGuessGenerator.MAX_DENSITY mines
+      per location; above that, populateMineField gives up and returns false.
+      
+      @param noGuess whether to use no-guess mode
+    */
+   public void setNoGuess(boolean noGuess) {
+      
+      this.noGuess = noGuess;
+   }
+   
+   
+   /**
+      Returns whether populateMineField(row, col) only makes boards that can be solved without guessing.
+      
+      @return whether no-guess mode is on
+    */
+   public boolean isNoGuess() {
+      
+      return noGuess;
+   }
+   
+   
+   /**
+      Removes any current mines on the minefield, and puts numMines() mines in random locations on the minefield,
+      ensuring that no mine is placed at (row, col), or, if safeZone is true, anywhere in the 3x3 area centered on
+      (row, col) (so the first square opened is always an empty one).  All the allowed locations are equally likely to
+      get a mine, and the time taken is proportional to numMines(), whatever the density.
+      
+      @param row the row of the location to avoid placing a mine
+      @param col the column of the location to avoid placing a mine
+      @param safeZone whether to also keep the neighbors of (row, col) free of mines
+      PRE: inRange(row, col) and numMines() <= numRows() * numCols() - (number of locations kept free)
+    */
+   public void populateMineField(int row, int col, boolean safeZone) {
+            
+      placeMines(row, col, safeZone, ran);
+   }
+   
+   
+   /**
+      Same as populateMineField(row, col, safeZone), but the mines are placed using a new generator created
+      from the given seed (see seededGenerator) instead of this minefield's generator.  The result only depends on
+      seed, numRows(), numCols(), numMines(), row, col and safeZone, so a board can be generated again later (e.g., to
+      replay a game) from those values alone.
+      
+      @param row the row of the location to avoid placing a mine
+      @param col the column of the location to avoid placing a mine
+      @param safeZone whether to also keep the neighbors of (row, col) free of mines
+      @param seed the seed that determines the placement of the mines
+      PRE: inRange(row, col) and numMines() <= numRows() * numCols() - (number of locations kept free)
+    */
+   public void populateMineField(int row, int col, boolean safeZone, long seed) {
+            
+      placeMines(row, col, safeZone, seededGenerator(seed));
+      this.seed = seed;
+      this.hasSeed = true;
+   }
+   
+   
+   /**
+      Sets the generator used by populateMineField to place the mines from now on.  A generator should not be
+      shared by minefields used on different threads (unless it is thread-safe); split one instead.
+      
+      @param generator the random generator to use
+    */
+   public void setRandomGenerator(RandomGenerator generator) {
+      
+      ran = generator;
+   }
+   
+   
+   /**
+      Returns the generator used by populateMineField to place the mines.
+      
+      @return the random generator of this minefield
+    */
+   public RandomGenerator getRandomGenerator() {
+      
+      return ran;
+   }
+   
+   
+   /**
+      Creates the generator used for seeded boards: an L64X128MixRandom seeded with the given value.  Its algorithm is
+      fully specified, so the same seed gives the same sequence on every JVM.  It can be split to get independent
+      generators for other threads.
+      
+      @param seed the seed for the generator
+      @return a new generator determined by the seed
+    */
+   public static RandomGenerator.SplittableGenerator seededGenerator(long seed) {
+      
+      return (RandomGenerator.SplittableGenerator) SEEDED_GENERATOR_FACTORY.create(seed);
    }
    
    
@@ -102,15 +264,27 @@ public class MineField {
     *   Thus, after this call, the actual number of mines in the minefield does not match numMines().  
     *   Note: This is the state a minefield created with the three-arg constructor is in 
     *         at the beginning of a game.
+    *   A sparse minefield is cleared one mine at a time (from the mine locations), so it costs time proportional to
+    *   the number of mines, not the size of the field; a denser one is cleared with whole-array fills, which are
+    *   faster then.
     */
    public void resetEmpty() {
       
-      numRam = 0;
-      for(int row = 0; row < numRows(); row++){
-         for(int col = 0; col < numCols(); col++){
-            mineData[row][col] = false;
+      if ((long) numMinePositions * SPARSE_RESET_RATIO < (long) numRows * numCols){   //long: big boards overflow int
+         for (int i = 0; i < numMinePositions; i++){
+            removeMine(minePositions[i] / numCols, minePositions[i] % numCols);
          }
-      }     
+      }
+      else {
+         Arrays.fill(mineBits, 0L);
+         if (adjacentCounts != null){
+            Arrays.fill(adjacentCounts, (byte) 0);
+         }
+      }
+      numRam = 0;
+      numMinePositions = 0;
+      board3BV = -1;
+      hasSeed = false;
    }
 
    
@@ -118,6 +292,8 @@ public class MineField {
    *  Returns the number of mines adjacent to the specified mine location (not counting a possible 
    *  mine at (row, col) itself).
    *  Diagonals are also considered adjacent, so the return value will be in the range [0,8]
+   *  The counts are kept up to date in a table whenever a mine is added or removed, so this is a single lookup
+   *  (for a compact minefield they are counted from the bit board instead).
    *
    *  @param row  row of the location to check
    *  @param col  column of the location to check
@@ -127,8 +303,10 @@ public class MineField {
    
    public int numAdjacentMines(int row, int col) {
       
-      int adjMines = countAdjacent(row, col);     
-      return adjMines;     
+      if (adjacentCounts != null){
+         return adjacentCounts[row * numCols + col];
+      }
+      return countAdjacent(row, col);     
    }
    
    
@@ -188,12 +366,9 @@ public class MineField {
     */    
    public boolean hasMine(int row, int col) {
       
-      if (mineData[row][col] == true){
-         return true;
-      }
-      else{
-         return false;
-      }            
+      int paddedCol = col + 1;
+      long word = mineBits[(row + 1) * wordsPerRow + (paddedCol >>> 6)];
+      return ((word >>> paddedCol) & 1L) != 0;            
    }
    
    
@@ -213,9 +388,90 @@ public class MineField {
       return numMines;
    }
    
+  /**
+   *   Returns the number of mines currently on the field (which, unlike numMines(), is 0 for a minefield created with
+   *   the 3-arg constructor until it's populated).  Use with getMineLocation to visit every mine without scanning
+   *   the whole field.
+   *
+   *   @return the number of mines on the field
+   */
+   public int numMineLocations() {
+      
+      return numMinePositions;
+   }
+   
+   
+  /**
+   *   Returns the location of one of the mines currently on the field, as row * numCols() + col.
+   *
+   *   @param index  which mine, 0 <= index < numMineLocations()
+   *   @return the location of the mine
+   */
+   public int getMineLocation(int index) {
+      
+      return minePositions[index];
+   }
+   
+   
+  /**
+   *   Returns whether the current mines were placed by populateMineField(row, col, safeZone, seed) (or restored from a
+   *   saved game that was), so getSeed() can tell how to generate them again.
+   *
+   *   @return whether the mines have a seed
+   */
+   public boolean hasSeed() {
+      
+      return hasSeed;
+   }
+   
+   
+  /**
+   *   Returns the seed the current mines were placed from.
+   *
+   *   @return the seed
+   *   PRE: hasSeed()
+   */
+   public long getSeed() {
+      
+      return seed;
+   }
+   
+   
+  /**
+   *   Sets the seed the current mines were placed from, when they are restored from a saved game (see GameCodec).
+   *
+   *   @param seed  the seed
+   */
+   void restoreSeed(long seed) {
+      
+      this.seed = seed;
+      this.hasSeed = true;
+   }
+   
+   
+  /**
+   *   Returns the 3BV of the current mines: the minimum number of left clicks needed to open every non-mine location
+   *   without guessing, i.e. the number of empty regions (connected areas of locations with no adjacent mines, which
+   *   open together with their border in one click) plus the number of non-mine locations that are not on the border 
+   *   of any empty region.  It's computed once for each placement of the mines and then remembered, so it only costs
+   *   time proportional to the size of the field the first time it's asked for after the mines change.
+   *
+   *   @return the 3BV of the field
+   */
+   public int get3BV() {
+      
+      if (board3BV < 0){
+         board3BV = compute3BV();
+      }
+      return board3BV;
+   }
+   
+   
   /** 
    *   The only-allower public toString interface to check if every instance variable is iniated correctly.
    *   Can be called inside MineField class or outside(e.g. VisibleField class).
+   *   Only the first TO_STRING_MAX_ROWS rows and TO_STRING_MAX_COLS columns of mines are shown, so a huge field
+   *   doesn't make a huge string (use dump for all of it).
    *
    *   @ return the string that contains info about mine field: numnber of rows, columns, mines
    *
@@ -227,117 +483,428 @@ public class MineField {
          + ", numCols: " + numCols() + ", and numMines(): " + numMines() 
          + System.lineSeparator() + showMine();
    }
+   
+   
+  /**
+   *   Writes the whole field as text to out: one line per row, with '*' for a mine and '.' for an empty location.
+   *   Takes time linear in the size of the field, and only keeps one row in memory, so it can be used to log
+   *   fields of any size (wrap a Writer in a BufferedWriter for speed).
+   *
+   *   @param out  where to write the field
+   *   @throws IOException  if out throws it
+   */
+   public void dump(Appendable out) throws IOException {
+      
+      StringBuilder line = new StringBuilder(numCols + System.lineSeparator().length());
+      for (int row = 0; row < numRows; row++){
+         line.setLength(0);
+         for (int col = 0; col < numCols; col++){
+            line.append(hasMine(row, col) ? '*' : '.');
+         }
+         line.append(System.lineSeparator());
+         out.append(line);
+      }
+   }
+   
+   
+  /**
+   *   Writes the whole field in binary to out: numRows(), numCols() and numMines() as 4-byte ints, then the mines
+   *   as ceil(numRows() * numCols() / 64) 8-byte words, one bit per location, row-major, as exportMines (and the
+   *   mine section of a GameCodec record).  Everything is big-endian.  Takes time linear in the number of words,
+   *   and only uses a buffer of DUMP_BUFFER_SIZE bytes.  out is not flushed or closed.
+   *
+   *   @param out  where to write the field
+   *   @throws IOException  if out throws it
+   */
+   public void dump(OutputStream out) throws IOException {
+      
+      byte[] buffer = new byte[DUMP_BUFFER_SIZE];
+      int size = putBytes(buffer, 0, numRows, 4);
+      size = putBytes(buffer, size, numCols, 4);
+      size = putBytes(buffer, size, numMines, 4);
+      long word = 0;         //the packed bits not written yet, numBits of them
+      int numBits = 0;
+      for (int row = 0; row < numRows; row++){
+         for (int col = 0; col < numCols; col += 64){
+            int len = Math.min(64, numCols - col);
+            long bits = readBits(mineBits, (long) (row + 1) * wordsPerRow * 64 + col + 1, len);
+            word |= bits << numBits;
+            if (numBits + len >= 64){
+               if (size + 8 > buffer.length){
+                  out.write(buffer, 0, size);
+                  size = 0;
+               }
+               size = putBytes(buffer, size, word, 8);
+               word = (numBits == 0) ? 0 : bits >>> (64 - numBits);   //the bits that didn't fit in the word
+               numBits = numBits + len - 64;
+            }
+            else {
+               numBits += len;
+            }
+         }
+      }
+      if (numBits > 0){
+         if (size + 8 > buffer.length){
+            out.write(buffer, 0, size);
+            size = 0;
+         }
+         size = putBytes(buffer, size, word, 8);
+      }
+      out.write(buffer, 0, size);
+   }
 
    
+  /**
+   *   Writes the mines of this field as numRows() * numCols() packed bits, row-major with no border, into dst starting
+   *   at bit index bitOffset (bit i of the field is bit (i & 63) of word i >>> 6 after adding bitOffset).  Bits are only
+   *   ever set, so that region of dst must be all 0 beforehand.  Used to store many boards in one flat buffer
+   *   (see MineFieldBatch).
+   *
+   *   @param dst  the buffer to write into
+   *   @param bitOffset  the index of the bit in dst for location (0, 0)
+   */
+   void exportMines(long[] dst, long bitOffset) {
+      
+      for (int row = 0; row < numRows; row++){
+         long dstBit = bitOffset + (long) row * numCols;
+         //copy the row 64 bits (or less, for the last piece) at a time: columns col..col+len-1 are padded bits col+1..col+len.
+         for (int col = 0; col < numCols; col += 64){
+            int len = Math.min(64, numCols - col);
+            long bits = readBits(mineBits, (long) (row + 1) * wordsPerRow * 64 + col + 1, len);
+            writeBits(dst, dstBit + col, bits);
+         }
+      }
+   }
+   
+   
+  /**
+   *   Replaces the mines of this field with numRows() * numCols() packed bits read from src at bit index bitOffset,
+   *   in the format written by exportMines.  Keeps the adjacent mine counts up to date, and does not change numMines().
+   *
+   *   @param src  the buffer to read from
+   *   @param bitOffset  the index of the bit in src for location (0, 0)
+   */
+   void importMines(long[] src, long bitOffset) {
+      
+      resetEmpty();
+      for (int row = 0; row < numRows; row++){
+         long srcBit = bitOffset + (long) row * numCols;
+         for (int col = 0; col < numCols; col += 64){
+            long bits = readBits(src, srcBit + col, Math.min(64, numCols - col));
+            while (bits != 0){
+               addMine(row, col + Long.numberOfTrailingZeros(bits));
+               numRam ++;
+               bits &= bits - 1;
+            }
+         }
+      }
+   }
+   
+   
+  /**
+   *   Returns len bits of words starting at bit index bit, as the low bits of a long.
+   *
+   *   @param words  the bits to read from
+   *   @param bit  the index of the first bit
+   *   @param len  the number of bits, in [1, 64]
+   *   @return the bits read
+   */
+   static long readBits(long[] words, long bit, int len) {
+      
+      int index = (int) (bit >>> 6);
+      int shift = (int) (bit & 63);
+      long bits = words[index] >>> shift;
+      if (shift + len > 64){
+         bits |= words[index + 1] << (64 - shift);
+      }
+      return (len == 64) ? bits : bits & ((1L << len) - 1);
+   }
+   
+   
+  /**
+   *   ORs the given bits into words starting at bit index bit.
+   *
+   *   @param words  the bits to write into
+   *   @param bit  the index where the lowest bit of bits goes
+   *   @param bits  the bits to write, with nothing set above the ones meant to be written
+   */
+   static void writeBits(long[] words, long bit, long bits) {
+      
+      int index = (int) (bit >>> 6);
+      int shift = (int) (bit & 63);
+      words[index] |= bits << shift;
+      if (shift != 0 && (bits >>> (64 - shift)) != 0){
+         words[index + 1] |= bits >>> (64 - shift);
+      }
+   }
+   
+   
    // <put private methods here>
    
   /**
-   *  Ever time the used left-clicked the cell, the program uncover the the cell. How large the area will be opened
-   *  depends on the number of adjacent mines that cell has. This private method iterate the whole area containing 
-   *  9 cells and return the number of mines.
-   *  
-   *  @ param row the number of row that the user is clicking on.
-   *  @ param col the number of column that the user is clicking on.
-   *  @ return the number of adjacent mines for current cell the user is clicking on.
+   *  Does the work of populateMineField: removes any current mines and places numMines() mines with the given
+   *  generator, keeping (row, col) (and its neighbors if safeZone) free.
    *
+   *  @ param row the row of the location to avoid placing a mine.
+   *  @ param col the column of the location to avoid placing a mine.
+   *  @ param safeZone whether to also keep the neighbors of (row, col) free of mines.
+   *  @ param generator the random generator to use.
    */
    
-   private int countAdjacent(int row, int col){
+   private void placeMines(int row, int col, boolean safeZone, RandomGenerator generator) {
+      
+      resetEmpty();
       
+      //List the locations to avoid, in increasing row-major order (at most the 3x3 zone).
+      numSafeCells = 0;
+      int zoneSize = safeZone ? 1 : 0;
+      for (int safeRow = Math.max(row - zoneSize, 0); safeRow <= Math.min(row + zoneSize, numRows - 1); safeRow++){
+         for (int safeCol = Math.max(col - zoneSize, 0); safeCol <= Math.min(col + zoneSize, numCols - 1); safeCol++){
+            safeCells[numSafeCells] = safeRow * numCols + safeCol;
+            numSafeCells++;
+         }
+      }
+      
+      //Floyd's algorithm: picks numMines() distinct indices out of the numEligible allowed locations with exactly
+      //one random number per mine.  For each j, take a random index in [0, j]; if that one was picked already, j
+      //itself can't have been (all earlier picks are < j), so take j instead.  The bit board is the "picked" set.
+      int numEligible = numRows * numCols - numSafeCells;
+      for (int j = numEligible - numMines(); j < numEligible; j++){
+         int cell = eligibleCell(generator.nextInt(j + 1));
+         if (hasMine(cell / numCols, cell % numCols)){
+            cell = eligibleCell(j);
+         }
+         addMine(cell / numCols, cell % numCols);
+         numRam ++;
+      }
+   }
+   
+  /**
+   *  Computes the 3BV (see get3BV): flood fills each empty region that hasn't been reached yet (marking the region and
+   *  its border as reached) and counts one per region, then counts one for each non-mine location still not reached.
+   *
+   *  @ return the 3BV of the current mines.
+   */
+   
+   private int compute3BV(){
+      
+      int numCells = numRows * numCols;
+      long[] reached = new long[(numCells + 63) >>> 6];
+      int[] stack = new int[64];
       int num = 0;
-      int maxRow = row + 1;
-      int maxCol = col + 1;
-      int curRow = row - 1;
-      int curCol = col - 1;
-      
-      //iterate the area which constains 8 cells(include the cell the user is clicking on, but
-      //not include the bottom-right cell, we will handle that cell after this try-catch clause.
-      //(1)do nothing for current cell being clicked. (2) if the cell we are visiting is true,
-      //then increment the number of adjacent mines by 1. (3) if the cell we are visiting is
-      //out of bound, do nothing. (4)after each try-cath clause(one cell we checked), move the
-      //position that we will visit: in the way of left to right, go to next row if reach the
-      //end of the current row.
-      while (curRow < maxRow || curCol < maxCol){
-         try{    
-            if(curRow == row && curCol == col){
-               
-            }            
-            else{
-               if (mineData[curRow][curCol] == true){
-               num += 1;
+      for (int cell = 0; cell < numCells; cell++){
+         int row = cell / numCols;
+         int col = cell % numCols;
+         if ((reached[cell >>> 6] & (1L << cell)) != 0 || hasMine(row, col) || numAdjacentMines(row, col) != 0){
+            continue;
+         }
+         //a new empty region: one click opens it all.
+         num++;
+         reached[cell >>> 6] |= 1L << cell;
+         stack[0] = cell;
+         int stackSize = 1;
+         while (stackSize > 0){
+            stackSize--;
+            int curRow = stack[stackSize] / numCols;
+            int curCol = stack[stackSize] % numCols;
+            for (int adjRow = Math.max(curRow - 1, 0); adjRow <= Math.min(curRow + 1, numRows - 1); adjRow++){
+               for (int adjCol = Math.max(curCol - 1, 0); adjCol <= Math.min(curCol + 1, numCols - 1); adjCol++){
+                  int adj = adjRow * numCols + adjCol;
+                  if ((reached[adj >>> 6] & (1L << adj)) != 0){
+                     continue;
+                  }
+                  reached[adj >>> 6] |= 1L << adj;
+                  if (numAdjacentMines(adjRow, adjCol) == 0){   //neighbors of an empty location are never mines
+                     if (stackSize == stack.length){
+                        stack = Arrays.copyOf(stack, 2 * stackSize);
+                     }
+                     stack[stackSize] = adj;
+                     stackSize++;
+                  }
                }
             }
          }
-         
-         catch (ArrayIndexOutOfBoundsException e){
-            continue;
+      }
+      //every other non-mine location needs a click of its own.
+      for (int cell = 0; cell < numCells; cell++){
+         if ((reached[cell >>> 6] & (1L << cell)) == 0 && !hasMine(cell / numCols, cell % numCols)){
+            num++;
+         }
+      }
+      return num;
+   }
+   
+  /**
+   *  Maps an index in [0, number of eligible locations) to the location (row * numCols + col) it stands for, where
+   *  the eligible locations are all the locations except the safeCells, in row-major order.
+   *
+   *  @ param index the index of the eligible location.
+   *  @ return the location, as row * numCols + col.
+   */
+   
+   private int eligibleCell(int index){
+      
+      int cell = index;
+      for (int i = 0; i < numSafeCells; i++){
+         if (safeCells[i] <= cell){
+            cell++;
+         }
+      }
+      return cell;
+   }
+   
+  /**
+   *  Puts a mine at (row, col), adds it to the mine locations, and adds one to the adjacent mine count of each of
+   *  its neighbors.
+   *
+   *  @ param row the row of the location to put a mine at.
+   *  @ param col the column of the location to put a mine at.
+   *  PRE: inRange(row, col) and !hasMine(row, col)
+   */
+   
+   private void addMine(int row, int col){
+      
+      int paddedCol = col + 1;
+      mineBits[(row + 1) * wordsPerRow + (paddedCol >>> 6)] |= 1L << paddedCol;
+      if (numMinePositions == minePositions.length){
+         minePositions = Arrays.copyOf(minePositions, Math.max(2 * numMinePositions, 16));
+      }
+      minePositions[numMinePositions] = row * numCols + col;
+      numMinePositions++;
+      board3BV = -1;
+      if (adjacentCounts != null){
+         adjustAdjacentCounts(row, col, 1);
+      }
+   }
+   
+  /**
+   *  Takes the mine at (row, col) off the bit board, and subtracts one from the adjacent mine count of each of its
+   *  neighbors.  Does not change the mine locations (resetEmpty empties them afterwards).
+   *
+   *  @ param row the row of the mine to remove.
+   *  @ param col the column of the mine to remove.
+   *  PRE: hasMine(row, col)
+   */
+   
+   private void removeMine(int row, int col){
+      
+      int paddedCol = col + 1;
+      mineBits[(row + 1) * wordsPerRow + (paddedCol >>> 6)] &= ~(1L << paddedCol);
+      if (adjacentCounts != null){
+         adjustAdjacentCounts(row, col, -1);
+      }
+   }
+   
+  /**
+   *  Adds delta to the adjacent mine count of every in-range neighbor of (row, col), not counting (row, col) itself.
+   *  Called with 1 when a mine is added at (row, col) and with -1 when it is removed.
+   *
+   *  @ param row the row of the mine that was added or removed.
+   *  @ param col the column of the mine that was added or removed.
+   *  @ param delta the change of the number of mines at (row, col).
+   */
+   
+   private void adjustAdjacentCounts(int row, int col, int delta){
+      
+      int minRow = Math.max(row - 1, 0);
+      int maxRow = Math.min(row + 1, numRows - 1);
+      int minCol = Math.max(col - 1, 0);
+      int maxCol = Math.min(col + 1, numCols - 1);
+      for (int adjRow = minRow; adjRow <= maxRow; adjRow++){
+         for (int adjCol = minCol; adjCol <= maxCol; adjCol++){
+            adjacentCounts[adjRow * numCols + adjCol] += delta;
          }
-         
-         finally{
-            if (curCol < maxCol){
-               curCol += 1;
-            }
-            else{
-               curRow +=1;
-               curCol = col - 1;
-            }
-         }        
       }
+      //the loop above also changed the count of (row, col) itself, undo that.
+      adjacentCounts[row * numCols + col] -= delta;
+   }
+   
+  /**
+   *  Fills the adjacent mine count table and the mine locations from scratch for the mines currently in the
+   *  bit board.  Used by the constructor that takes a fixed mine field.
+   */
+   
+   private void buildMineIndexes(){
       
-      //check the bottom-right cell, if it is inRange and is true, increment the number of adjacent mines.
-      try{
-         if (mineData[curRow][curCol] == true){
-         num += 1;
+      Arrays.fill(adjacentCounts, (byte) 0);
+      numMinePositions = 0;
+      for (int row = 0; row < numRows; row++){
+         for (int col = 0; col < numCols; col++){
+            if (hasMine(row, col)){
+               minePositions[numMinePositions] = row * numCols + col;
+               numMinePositions++;
+               adjustAdjacentCounts(row, col, 1);
+            }
          }
       }
+   }
+   
+  /**
+   *  Counts the mines adjacent to (row, col) straight from the bit board: for each of the three padded rows
+   *  around it, shifts the three bits covering columns col-1..col+1 down to the bottom of a long (taking the
+   *  high bits from the next word when they straddle a word boundary) and popcounts them.
+   *  Because of the empty border no range checks are needed.  Used by compact minefields.
+   *
+   *  @ param row the row of the location to check.
+   *  @ param col the column of the location to check.
+   *  @ return the number of mines adjacent to (row, col).
+   */
+   
+   private int countAdjacent(int row, int col){
       
-      catch (ArrayIndexOutOfBoundsException e){
-         num = num;
-      }     
-      return num;     
+      int shift = col & 63;           //padded column of the left neighbor is col, so that's the lowest bit we need.
+      int index = row * wordsPerRow + (col >>> 6);
+      int num = 0;
+      for (int paddedRow = row; paddedRow <= row + 2; paddedRow++){
+         long bits = mineBits[index] >>> shift;
+         if (shift > 61){
+            bits |= mineBits[index + 1] << (64 - shift);
+         }
+         num += Long.bitCount(bits & 7L);
+         index += wordsPerRow;
+      }
+      if (hasMine(row, col)){
+         num--;
+      }
+      return num;
    }
    
   /** 
-   *  Iterate the 2D boolean array passed in and copy the value of each cell to the new array.
+   *  Iterate the 2D boolean array passed in and set the bit of each cell that is true.
    *
    *  @ param  mineData 2D boolean array which stands for fixed mine field.
-   *  @ return the copy of array passed in.
    *
    */
    
-   private boolean[][] defensiveCopy(boolean[][] mineData){
+   private void copyMines(boolean[][] mineData){
       
-      boolean[][] defensiveMineData = new boolean[numRows][numCols];
-      for (int row = 0; row < numRows(); row++){
+      for (int row = 0; row < numRows; row++){
          for (int col = 0; col < numCols; col++){
-            defensiveMineData[row][col] = mineData[row][col];
+            if (mineData[row][col]){
+               int paddedCol = col + 1;
+               mineBits[(row + 1) * wordsPerRow + (paddedCol >>> 6)] |= 1L << paddedCol;
+            }
          }
       }   
-      return defensiveMineData;        
    }
    
   /** 
-   *   Used when resetting the random mine field to empty, the mine field will then be populated 
-   *   again after clicking the first uncovered cell.   
+   *   Used when creating a mine field, the mine field will then be populated 
+   *   after clicking the first uncovered cell.   
+   *   Also sets wordsPerRow: every row gets one extra bit on each side for the empty border.
    *
-   *   return the 2D boolean array that all cells are set to false(empty).
+   *   return the bit board with no bits set (all cells empty).
    *
    */
-   private boolean[][] createEmptyMineField(){
-      
+   private long[] createEmptyMineField(){
       
-      boolean[][] emptyMineField = new boolean[numRows()][numCols()];
-      for(int row = 0; row < numRows(); row++){
-         for(int col = 0; col < numCols(); col++){
-            emptyMineField[row][col] = false;
-         }
-      }
-      return emptyMineField;
+      wordsPerRow = (numCols + 2 + 63) >>> 6;
+      return new long[(numRows + 2) * wordsPerRow];
    }
    
   /**
    *   Used for counting the number of mines in fixed mine field.
-   *   Iterate the whole mine field and count the number of cells that are true.
+   *   Popcount every word of the bit board (the border bits are always 0).
    *
    *   @ return the number of mines in the fixed mine field.  
    *
@@ -345,15 +912,10 @@ public class MineField {
    
    private int getTotalNumMines(){
       
-      //use for-each loop iterate the whole 2D-array mineData, increment numMines by one when seeing true
       //used when facing fixed mine field.
       int numMines = 0;
-      for(boolean [] row : mineData){
-         for (boolean element : row){
-            if (element == true){
-               numMines ++;
-            }
-         } 
+      for(long word : mineBits){
+         numMines += Long.bitCount(word);
       }
       return numMines;    
    }
@@ -361,18 +923,40 @@ public class MineField {
    
    /**
     *   Used for toString only, make it easier for debug.  
-    *   Iterate the whole mine field(fixed or random) and show their true or false status.
+    *   Iterate the mine field(fixed or random), up to TO_STRING_MAX_ROWS rows and TO_STRING_MAX_COLS columns, and
+    *   show their true or false status.  "..." marks the rows and columns left out.
     *
     */
    private String showMine(){
-      String str = "";
-      for (int row = 0; row < numRows(); row++){
-         for (int col = 0; col < numCols(); col++){
-            str = str + mineData[row][col] + ",";
+      int shownRows = Math.min(numRows, TO_STRING_MAX_ROWS);
+      int shownCols = Math.min(numCols, TO_STRING_MAX_COLS);
+      StringBuilder str = new StringBuilder(shownRows * (6 * shownCols + 8));
+      for (int row = 0; row < shownRows; row++){
+         for (int col = 0; col < shownCols; col++){
+            str.append(hasMine(row, col)).append(',');
+         }
+         if (shownCols < numCols){
+            str.append("...");
          }
-         str = str + System.lineSeparator();
+         str.append(System.lineSeparator());
+      }
+      if (shownRows < numRows){
+         str.append("... (").append(numRows - shownRows).append(" more rows)").append(System.lineSeparator());
+      }
+      return str.toString();
+   }
+   
+   
+   /**
+    *   Used by dump(OutputStream): puts the numBytes low bytes of value in buffer at index pos, most significant
+    *   first, and returns the index after them.
+    *
+    */
+   private static int putBytes(byte[] buffer, int pos, long value, int numBytes){
+      for (int shift = 8 * (numBytes - 1); shift >= 0; shift -= 8){
+         buffer[pos++] = (byte) (value >>> shift);
       }
-      return str;
+      return pos;
    }
           
 }
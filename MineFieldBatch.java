@@ -0,0 +1,246 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+
+/**
+ *  MineFieldBatch
+ *  A large number of random minefields with the same dimensions and number of mines, generated in bulk and stored
+ *  bit-packed in one flat long[] (numRows * numCols bits per board, row-major, no border; see MineField.exportMines).
+ *  Boards are not objects: they are read through the accessors below by board index, or loaded into a MineField
+ *  to be played with copyTo.
+ *
+ *  generate fills the whole batch using fork/join: the boards are split into chunks of CHUNK_SIZE, and each chunk is
+ *  generated by one worker with its own compact MineField and its own generator split off a generator seeded with
+ *  the given seed.  The chunks and their generators don't depend on the number of threads, so the same seed always
+ *  gives the same batch.
+ */
+
+public class MineFieldBatch {
+
+  /**
+   *   Representation invariant:
+   *
+   *   numRows, numCols > 0, 0 <= numMines < numRows * numCols, numBoards >= 0.
+   *   board i occupies bits [i * bitsPerBoard, (i + 1) * bitsPerBoard) of mineBits, bitsPerBoard = numRows * numCols,
+   *   and each board is padded to whole words (wordsPerBoard) so boards never share a word.
+   */
+
+   private static final int CHUNK_SIZE = 256;    //number of boards each fork/join task generates
+
+   private final int numRows;
+   private final int numCols;
+   private final int numMines;
+   private final int numBoards;
+   private final int wordsPerBoard;
+   private final long [] mineBits;
+
+
+   /**
+    *  Create a batch of numBoards empty boards with the given dimensions.  Call generate to fill them.
+    *
+    *  @param numBoards  number of boards in the batch, must be non-negative
+    *  @param numRows  number of rows of each board, must be positive
+    *  @param numCols  number of columns of each board, must be positive
+    *  @param numMines  number of mines of each board once generated
+    *  PRE: numMines < numRows * numCols and numBoards * ceil(numRows * numCols / 64) < 2^31
+    */
+   public MineFieldBatch(int numBoards, int numRows, int numCols, int numMines) {
+
+      this.numBoards = numBoards;
+      this.numRows = numRows;
+      this.numCols = numCols;
+      this.numMines = numMines;
+      this.wordsPerBoard = (numRows * numCols + 63) >>> 6;
+      long numWords = (long) numBoards * wordsPerBoard;
+      assert numWords <= Integer.MAX_VALUE;
+      this.mineBits = new long[(int) numWords];
+   }
+
+
+   /**
+    *  Fill every board of the batch with random mines using the common fork/join pool.
+    *  See generate(ForkJoinPool, long, int, int, boolean).
+    *
+    *  @param seed  the seed the whole batch is generated from
+    *  @param safeRow  the row of the location no board has a mine at
+    *  @param safeCol  the column of the location no board has a mine at
+    *  @param safeZone  whether the neighbors of (safeRow, safeCol) are kept free of mines as well
+    */
+   public void generate(long seed, int safeRow, int safeCol, boolean safeZone) {
+
+      generate(ForkJoinPool.commonPool(), seed, safeRow, safeCol, safeZone);
+   }
+
+
+   /**
+    *  Fill every board of the batch with random mines, using the threads of the given pool.  Each board is made the
+    *  same way MineField.populateMineField(safeRow, safeCol, safeZone) would.  The result only depends on the seed
+    *  (and the dimensions), not on the pool.
+    *
+    *  @param pool  the pool to run the generation in
+    *  @param seed  the seed the whole batch is generated from
+    *  @param safeRow  the row of the location no board has a mine at
+    *  @param safeCol  the column of the location no board has a mine at
+    *  @param safeZone  whether the neighbors of (safeRow, safeCol) are kept free of mines as well
+    */
+   public void generate(ForkJoinPool pool, long seed, int safeRow, int safeCol, boolean safeZone) {
+
+      //split one generator per chunk up front, so which generator a board gets doesn't depend on the scheduling.
+      int numChunks = (numBoards + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      RandomGenerator.SplittableGenerator root = MineField.seededGenerator(seed);
+      RandomGenerator[] generators = new RandomGenerator[numChunks];
+      for (int chunk = 0; chunk < numChunks; chunk++){
+         generators[chunk] = root.split();
+      }
+      pool.invoke(new GenerateTask(generators, 0, numChunks, safeRow, safeCol, safeZone));
+   }
+
+
+   /**
+    *  Returns the number of boards in the batch.
+    *
+    *  @return the number of boards
+    */
+   public int numBoards() {
+
+      return numBoards;
+   }
+
+
+   /**
+    *  Returns the number of rows of every board.
+    *
+    *  @return the number of rows
+    */
+   public int numRows() {
+
+      return numRows;
+   }
+
+
+   /**
+    *  Returns the number of columns of every board.
+    *
+    *  @return the number of columns
+    */
+   public int numCols() {
+
+      return numCols;
+   }
+
+
+   /**
+    *  Returns the number of mines of every board.
+    *
+    *  @return the number of mines
+    */
+   public int numMines() {
+
+      return numMines;
+   }
+
+
+   /**
+    *  Returns whether the given board has a mine at (row, col).
+    *
+    *  @param board  index of the board
+    *  @param row  row of the location to check
+    *  @param col  column of the location to check
+    *  @return whether there is a mine there
+    *  PRE: 0 <= board < numBoards() and (row, col) is in range
+    */
+   public boolean hasMine(int board, int row, int col) {
+
+      long bit = (long) board * wordsPerBoard * 64 + row * numCols + col;
+      return ((mineBits[(int) (bit >>> 6)] >>> bit) & 1L) != 0;
+   }
+
+
+   /**
+    *  Returns the number of mines adjacent to (row, col) on the given board (not counting (row, col) itself).
+    *
+    *  @param board  index of the board
+    *  @param row  row of the location to check
+    *  @param col  column of the location to check
+    *  @return the number of adjacent mines, in [0, 8]
+    *  PRE: 0 <= board < numBoards() and (row, col) is in range
+    */
+   public int numAdjacentMines(int board, int row, int col) {
+
+      long boardBit = (long) board * wordsPerBoard * 64;
+      int minCol = Math.max(col - 1, 0);
+      int len = Math.min(col + 1, numCols - 1) - minCol + 1;
+      int num = 0;
+      for (int adjRow = Math.max(row - 1, 0); adjRow <= Math.min(row + 1, numRows - 1); adjRow++){
+         num += Long.bitCount(MineField.readBits(mineBits, boardBit + adjRow * numCols + minCol, len));
+      }
+      return hasMine(board, row, col) ? num - 1 : num;
+   }
+
+
+   /**
+    *  Loads the given board into a MineField (e.g. to play it).  The MineField's adjacent mine counts are updated,
+    *  numMines() is not changed.
+    *
+    *  @param board  index of the board
+    *  @param target  the minefield to load it into
+    *  PRE: 0 <= board < numBoards() and target has the same numRows() and numCols() as this batch
+    */
+   public void copyTo(int board, MineField target) {
+
+      target.importMines(mineBits, (long) board * wordsPerBoard * 64);
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // INNER CLASS GenerateTask
+   // generates chunks [fromChunk, toChunk) of the batch, splitting the range in half until it's one chunk
+   private class GenerateTask extends RecursiveAction {
+
+      private final RandomGenerator[] generators;
+      private final int fromChunk;
+      private final int toChunk;
+      private final int safeRow;
+      private final int safeCol;
+      private final boolean safeZone;
+
+      public GenerateTask(RandomGenerator[] generators, int fromChunk, int toChunk,
+                          int safeRow, int safeCol, boolean safeZone) {
+         this.generators = generators;
+         this.fromChunk = fromChunk;
+         this.toChunk = toChunk;
+         this.safeRow = safeRow;
+         this.safeCol = safeCol;
+         this.safeZone = safeZone;
+      }
+
+      /**
+         Generate a single chunk directly, or fork two halves.
+       */
+      protected void compute() {
+
+         if (toChunk - fromChunk > 1) {
+            int mid = (fromChunk + toChunk) >>> 1;
+            invokeAll(new GenerateTask(generators, fromChunk, mid, safeRow, safeCol, safeZone),
+                      new GenerateTask(generators, mid, toChunk, safeRow, safeCol, safeZone));
+            return;
+         }
+         if (fromChunk == toChunk) return;
+
+         // one compact scratch minefield per chunk; each board is populated in it then copied into the buffer.
+         MineField scratch = new MineField(numRows, numCols, numMines, true);
+         scratch.setRandomGenerator(generators[fromChunk]);
+         int lastBoard = Math.min((fromChunk + 1) * CHUNK_SIZE, numBoards);
+         for (int board = fromChunk * CHUNK_SIZE; board < lastBoard; board++) {
+            int firstWord = board * wordsPerBoard;
+            for (int word = firstWord; word < firstWord + wordsPerBoard; word++) {
+               mineBits[word] = 0L;
+            }
+            scratch.populateMineField(safeRow, safeCol, safeZone);
+            scratch.exportMines(mineBits, (long) firstWord * 64);
+         }
+      }
+   }
+   //------ END OF INNER CLASS GenerateTask ---------------------------------------------
+
+}
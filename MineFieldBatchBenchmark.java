@@ -0,0 +1,62 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+   MineFieldBatchBenchmark -- measures how many boards per second MineFieldBatch.generate produces for the
+   standard beginner (9x9, 10 mines), intermediate (16x16, 40 mines) and expert (16x30, 99 mines) boards,
+   with 1, 2, 4, ... threads up to the number of available processors.
+
+   To run it from the command line:
+      java MineFieldBatchBenchmark [numBoards]
+ */
+
+public class MineFieldBatchBenchmark {
+
+   private static final int[][] CONFIGS = {{9, 9, 10}, {16, 16, 40}, {16, 30, 99}};   // numRows, numCols, numMines
+   private static final int DEFAULT_NUM_BOARDS = 1000000;
+   private static final int WARMUP_ROUNDS = 3;
+   private static final int MEASURED_ROUNDS = 5;
+
+
+   public static void main(String[] args) {
+
+      int numBoards = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NUM_BOARDS;
+      int maxThreads = Runtime.getRuntime().availableProcessors();
+
+      for (int[] config : CONFIGS) {
+         MineFieldBatch batch = new MineFieldBatch(numBoards, config[0], config[1], config[2]);
+         System.out.println(config[0] + "x" + config[1] + "/" + config[2] + ", " + numBoards + " boards per round:");
+         double singleThreaded = 0;
+         for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+               batch.generate(pool, round, config[0] / 2, config[1] / 2, false);
+            }
+            long start = System.nanoTime();
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+               batch.generate(pool, round, config[0] / 2, config[1] / 2, false);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+
+            double boardsPerSec = (double) numBoards * MEASURED_ROUNDS / seconds;
+            if (threads == 1) {
+               singleThreaded = boardsPerSec;
+            }
+            System.out.printf("   %3d thread(s): %,14.0f boards/sec  (speedup %.2fx)%n",
+                              threads, boardsPerSec, boardsPerSec / singleThreaded);
+         }
+      }
+   }
+
+
+   /**
+      Next number of threads to measure: doubles, but always ends with exactly maxThreads.
+    */
+   private static int nextThreadCount(int threads, int maxThreads) {
+      if (threads == maxThreads) {
+         return maxThreads + 1;
+      }
+      return Math.min(threads * 2, maxThreads);
+   }
+
+}
@@ -1,4 +1,7 @@
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
 public class MineFieldTester{
    
    private static boolean[][] smallMineField = 
@@ -8,7 +11,7 @@ public class MineFieldTester{
       {false, true, false, true}};
    
 
-   public static void main(String[] args){
+   public static void main(String[] args) throws IOException {
    
       MineField testMine = new MineField(smallMineField);
       
@@ -38,6 +41,10 @@ public class MineFieldTester{
       System.out.println("Expected [3][3] numAdjacentMines: 1, Actual [3][3] numAdjacentMines: " + testMine.numAdjacentMines(3,3) + ".");
       System.out.println("Expected [2][2] numAdjacentMines: 3, Actual [2][2] numAdjacentMines: " + testMine.numAdjacentMines(2,2) + ".");      
       
+      System.out.println("");
+      System.out.println("Test get3BV.........");
+      System.out.println("Expected get3BV: 6, Actual get3BV: " + testMine.get3BV() + ".");
+      
       System.out.println("");
       System.out.println("Test resetEmpty.........");
       testMine.resetEmpty();
@@ -71,6 +78,36 @@ public class MineFieldTester{
       System.out.println("Expected MineField(after populated[3][3]) created with numRows: 4, numCols: 4, and numMines(): 3.");
       System.out.println("Acutal: " + test3Mine.toString());
       
+      System.out.println("");
+      System.out.println("Test no-guess populate.........");
+      MineField noGuessMine = new MineField(16,30,99);
+      noGuessMine.setNoGuess(true);
+      boolean noGuessFound = noGuessMine.populateMineField(8,15);
+      System.out.println("Expected numAdjacentMines(8,15): 0, Actual: " + noGuessMine.numAdjacentMines(8,15) + ".");
+      System.out.println("Expected populate and isSolvable: true true, Actual: " + noGuessFound + " "
+                         + NoGuessGenerator.isSolvable(noGuessMine,8,15) + ".");
+      MineField denseMine = new MineField(16,30,130);   //27% mines, above NoGuessGenerator.MAX_DENSITY
+      denseMine.setNoGuess(true);
+      long denseStart = System.nanoTime();
+      boolean denseFound = denseMine.populateMineField(8,15);
+      long denseMillis = (System.nanoTime() - denseStart) / 1000000;
+      System.out.println("Expected dense populate: false, within a second: true, Actual: " + denseFound + ", "
+                         + (denseMillis < 1000) + " (" + denseMillis + " ms).");
+      
+      System.out.println("");
+      System.out.println("Test dump.........");
+      StringBuilder text = new StringBuilder();
+      MineField dumpMine = new MineField(smallMineField);
+      dumpMine.dump(text);
+      System.out.println("Expected text dump:" + System.lineSeparator() 
+                         + String.join(System.lineSeparator(), "....", "*...", ".**.", ".*.*"));
+      System.out.print("Actual text dump:" + System.lineSeparator() + text);
+      ByteArrayOutputStream binary = new ByteArrayOutputStream();
+      dumpMine.dump(binary);
+      System.out.println("Expected binary dump size: 20, Actual: " + binary.size() + ".");
+      System.out.println("Expected toString length of 1000x1000 below 30000, Actual: " 
+                         + new MineField(1000,1000,100).toString().length() + ".");
+      
    }
 
 }
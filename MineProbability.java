@@ -0,0 +1,295 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  MineProbability
+ *  Computes, for every covered square of a game, the probability that it has a mine given everything the player can
+ *  see, e.g., to show hints or to choose the best guess when no square is certainly safe (see SolverPolicy).
+ *
+ *  It is built on a MineSolver: the squares the solver has decided have probability 0 or 1, and the rest of the
+ *  frontier is split into independent components (see FrontierComponent) whose mine placements are counted by the
+ *  number of mines they use.  The components are enumerated in parallel on a fork/join pool, and the results are
+ *  cached (by the solver, by signature), so after a move only the components it changed are enumerated again.
+ *  The covered squares not next to any number (the interior) can hold any of the mines left: a combination of
+ *  placements with t mines on the frontier is weighted by C(numInterior, minesLeft - t), the number of ways of
+ *  placing the others in the interior, where minesLeft is MineField.numMines() minus the mines the solver has found
+ *  (the player's guesses are not trusted, so VisibleField.numMinesLeft() is not used).
+ *  The weights are computed as ratios in log space and every partial product is rescaled, so big boards don't
+ *  overflow a double.  A component whose enumeration was cut short is treated like interior squares.
+ */
+
+public class MineProbability {
+
+   private final MineSolver solver;
+   private final VisibleField field;
+   private final ForkJoinPool pool;
+   private final int numCols;
+   private final double[] probabilities;   //of the last compute(), row-major; 0 for uncovered squares
+   private int safestCell = -1;
+
+
+   /**
+    *  Create a probability engine on top of the given solver, using the common fork/join pool.
+    *
+    *  @param solver  the solver of the game
+    */
+   public MineProbability(MineSolver solver) {
+
+      this(solver, ForkJoinPool.commonPool());
+   }
+
+
+   /**
+    *  Create a probability engine on top of the given solver, enumerating components in the given pool.
+    *
+    *  @param solver  the solver of the game
+    *  @param pool  the pool to enumerate the components in
+    */
+   public MineProbability(MineSolver solver, ForkJoinPool pool) {
+
+      this.solver = solver;
+      this.field = solver.getField();
+      this.pool = pool;
+      this.numCols = field.getMineField().numCols();
+      this.probabilities = new double[field.getMineField().numRows() * numCols];
+   }
+
+
+   /**
+    *  Computes the probabilities for the current state of the game.  The solver has to be up to date (call its
+    *  update() after the last move first).
+    */
+   public void compute() {
+
+      FrontierComponent[] components = solver.frontierComponents();
+      enumerateAll(components);
+
+      int numInterior = solver.numOtherCovered(components);
+      int minesLeft = field.getMineField().numMines() - solver.numKnownMines();
+      int numComplete = 0;
+      int maxFrontierMines = 0;
+      for (FrontierComponent component : components) {
+         if (component.isComplete() && component.totalSolutions() > 0) {
+            components[numComplete++] = component;
+            maxFrontierMines += component.vars().length;
+         }
+         else {
+            numInterior += component.vars().length;
+         }
+      }
+
+      double[] weights = binomialWeights(numInterior, minesLeft, maxFrontierMines);
+
+      // scaled solution counts of each component, and the convolutions of all the components before / after it
+      double[][] solutions = new double[numComplete][];
+      double[] scales = new double[numComplete];
+      for (int i = 0; i < numComplete; i++) {
+         int numVars = components[i].vars().length;
+         solutions[i] = new double[numVars + 1];
+         double max = 0;
+         for (int k = 0; k <= numVars; k++) {
+            max = Math.max(max, components[i].solutions(k));
+         }
+         scales[i] = max;
+         for (int k = 0; k <= numVars; k++) {
+            solutions[i][k] = components[i].solutions(k) / max;
+         }
+      }
+      double[][] before = new double[numComplete + 1][];
+      double[][] after = new double[numComplete + 1][];
+      before[0] = new double[] {1.0};
+      after[numComplete] = new double[] {1.0};
+      for (int i = 0; i < numComplete; i++) {
+         before[i + 1] = convolve(before[i], solutions[i]);
+      }
+      for (int i = numComplete - 1; i >= 0; i--) {
+         after[i] = convolve(solutions[i], after[i + 1]);
+      }
+
+      // the interior: expected number of mines there over the number of squares
+      double[] all = before[numComplete];
+      double total = 0;
+      double interiorMines = 0;
+      for (int t = 0; t < all.length; t++) {
+         total += all[t] * weights[t];
+         interiorMines += all[t] * weights[t] * (minesLeft - t);
+      }
+      double interiorProbability = (numInterior > 0 && total > 0) ? interiorMines / total / numInterior : 0.0;
+
+      for (int cell = 0; cell < probabilities.length; cell++) {
+         int row = cell / numCols;
+         int col = cell - row * numCols;
+         if (field.isUncovered(row, col) || solver.isKnownSafe(row, col)) {
+            probabilities[cell] = 0.0;
+         }
+         else if (solver.isKnownMine(row, col)) {
+            probabilities[cell] = 1.0;
+         }
+         else {
+            probabilities[cell] = interiorProbability;
+         }
+      }
+
+      // each frontier square: weight of the placements with a mine on it over the weight of all of them
+      for (int i = 0; i < numComplete; i++) {
+         double[] others = convolve(before[i], after[i + 1]);
+         int numVars = components[i].vars().length;
+         double[] kWeights = new double[numVars + 1];   //weight of a placement of this component with k mines
+         double componentTotal = 0;
+         for (int k = 0; k <= numVars; k++) {
+            for (int t = 0; t < others.length; t++) {
+               kWeights[k] += others[t] * weights[t + k];
+            }
+            componentTotal += solutions[i][k] * kWeights[k];
+         }
+         int[] vars = components[i].vars();
+         for (int v = 0; v < numVars; v++) {
+            double mineWeight = 0;
+            for (int k = 0; k <= numVars; k++) {
+               mineWeight += components[i].mineCount(v, k) / scales[i] * kWeights[k];
+            }
+            probabilities[vars[v]] = (componentTotal > 0) ? mineWeight / componentTotal : interiorProbability;
+         }
+      }
+
+      safestCell = -1;
+      for (int cell = 0; cell < probabilities.length; cell++) {
+         int status = field.getStatus(cell / numCols, cell % numCols);
+         if (status >= 0 || status == VisibleField.MINE_GUESS) continue;
+         if (safestCell < 0 || probabilities[cell] < probabilities[safestCell]) {
+            safestCell = cell;
+         }
+      }
+   }
+
+
+   /**
+    *  Returns the probability that the square at (row, col) has a mine, as of the last compute().
+    *
+    *  @param row  row of the square
+    *  @param col  column of the square
+    *  @return the probability, in [0, 1]; 0 for an uncovered square
+    *  PRE: the square is in range
+    */
+   public double getProbability(int row, int col) {
+
+      return probabilities[row * numCols + col];
+   }
+
+
+   /**
+    *  Returns the covered square (not a MINE_GUESS) with the lowest probability of a mine, as of the last compute(),
+    *  the first in row-major order if there are several.
+    *
+    *  @return the square (row * numCols + col), or -1 if there are no covered squares
+    */
+   public int safestCell() {
+
+      return safestCell;
+   }
+
+
+   /**
+      Enumerates the components that weren't enumerated before (i.e., that weren't in the cache); more than one of
+      them are split between the threads of the pool.
+    */
+   private void enumerateAll(FrontierComponent[] components) {
+
+      if (components.length == 1) {
+         components[0].enumerate(MineSolver.MAX_ENUMERATION_STEPS);
+      }
+      else if (components.length > 1) {
+         pool.invoke(new EnumerateTask(components, 0, components.length));
+      }
+   }
+
+
+   /**
+      Returns w[t] proportional to C(numInterior, minesLeft - t), for t = 0 .. maxFrontierMines (0 where that's not a
+      possible number of interior mines), scaled so the biggest is 1.
+    */
+   private static double[] binomialWeights(int numInterior, int minesLeft, int maxFrontierMines) {
+
+      double[] weights = new double[maxFrontierMines + 1];
+      // log C(numInterior, n) for n from lowest up, relative to the lowest, using C(u, n + 1) = C(u, n) (u - n) / (n + 1)
+      int lowest = Math.max(minesLeft - maxFrontierMines, 0);
+      int highest = Math.min(minesLeft, numInterior);
+      if (lowest > highest) {
+         return weights;   //no consistent number of mines: all weights 0
+      }
+      double[] logC = new double[highest - lowest + 1];
+      double max = 0;
+      for (int n = lowest; n < highest; n++) {
+         logC[n - lowest + 1] = logC[n - lowest] + Math.log((double) (numInterior - n) / (n + 1));
+         max = Math.max(max, logC[n - lowest + 1]);
+      }
+      for (int t = 0; t <= maxFrontierMines; t++) {
+         int n = minesLeft - t;
+         if (n >= lowest && n <= highest) {
+            weights[t] = Math.exp(logC[n - lowest] - max);
+         }
+      }
+      return weights;
+   }
+
+
+   /**
+      Returns the convolution of a and b (the distribution of the sum of the numbers of mines), scaled so the
+      biggest element is 1 (or all 0).
+    */
+   private static double[] convolve(double[] a, double[] b) {
+
+      double[] result = new double[a.length + b.length - 1];
+      double max = 0;
+      for (int i = 0; i < a.length; i++) {
+         if (a[i] == 0) continue;
+         for (int j = 0; j < b.length; j++) {
+            result[i + j] += a[i] * b[j];
+         }
+      }
+      for (double value : result) {
+         max = Math.max(max, value);
+      }
+      if (max > 0) {
+         for (int i = 0; i < result.length; i++) {
+            result[i] /= max;
+         }
+      }
+      return result;
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // INNER CLASS EnumerateTask
+   // enumerates components [from, to), splitting the range in half until it's one component
+   private static class EnumerateTask extends RecursiveAction {
+
+      private final FrontierComponent[] components;
+      private final int from;
+      private final int to;
+
+      public EnumerateTask(FrontierComponent[] components, int from, int to) {
+         this.components = components;
+         this.from = from;
+         this.to = to;
+      }
+
+      /**
+         Enumerate a single component directly, or fork two halves.
+       */
+      protected void compute() {
+
+         if (to - from > 1) {
+            int mid = (from + to) >>> 1;
+            invokeAll(new EnumerateTask(components, from, mid), new EnumerateTask(components, mid, to));
+            return;
+         }
+         if (from < to) {
+            components[from].enumerate(MineSolver.MAX_ENUMERATION_STEPS);
+         }
+      }
+   }
+   //------ END OF INNER CLASS EnumerateTask ---------------------------------------------
+
+}
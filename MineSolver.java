@@ -0,0 +1,668 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ *  MineSolver
+ *  Works out which covered squares of a game are certainly safe and which certainly have a mine, from what the
+ *  player can see (VisibleField.getStatus), e.g., to give hints, to play games automatically (SolverPolicy) or to
+ *  rate how hard a board is.  The player's own mine guesses are not trusted: MINE_GUESS and QUESTION squares are
+ *  treated like any covered square.
+ *
+ *  Each opened number is a constraint: its covered neighbors hold exactly (number - neighbors known to be mines)
+ *  mines.  The solver applies, from cheapest to most expensive:
+ *     single point: a constraint that needs no more mines makes all its covered neighbors safe, and one that needs
+ *        as many mines as it has covered neighbors makes them all mines;
+ *     subset: if the covered neighbors of one constraint are a subset of another's (they are at most two squares
+ *        apart), the squares only the bigger one has hold the difference of their mines, which may again be zero or
+ *        all of them;
+ *     enumeration: when those rules find no safe square, the frontier (covered squares next to constraints) is split
+ *        into independent components, and all the mine placements of each component are enumerated (see
+ *        FrontierComponent).  A square that is safe, or a mine, in every placement is decided.  Components are
+ *        memoised by their signature, so a component that a move didn't touch is not enumerated again.
+ *
+ *  It is incremental: update() only looks at the squares VisibleField reports as changed (see nextChangedCell), and
+ *  only the constraints around them are evaluated again.  So update() has to be called after every move, before
+ *  whoever owns the field calls clearChangedCells().  When the field is reset for a new game, call reset().
+ */
+
+public class MineSolver {
+
+  /**
+   *   Representation invariant:
+   *
+   *   seen[cell] is the status of cell in the field at the last update() (or reset()).
+   *   deduced[cell] is SAFE or MINE for a square still covered in seen that the solver has decided, UNKNOWN otherwise
+   *   (it may stay SAFE once the square is opened).
+   *   safeStack[0..numSafe-1] has every square deduced SAFE, maybe some of them opened since.
+   *   the constraints (opened squares 1..8) whose neighbors changed since they were last evaluated are in dirtyQueue
+   *   (inDirty[cell] is true for them), each once.
+   *   activeCells[0..numActive-1] are the evaluated constraints that still have undecided covered neighbors, and
+   *   activePos[cell] is the index of cell in activeCells, -1 if it's not there.
+   */
+
+   private static final byte UNKNOWN = 0;
+   private static final byte SAFE = 1;
+   private static final byte MINE = 2;
+
+   static final long MAX_ENUMERATION_STEPS = 1L << 17;   //per component, so a huge frontier can't hang a move
+   private static final int MAX_CACHED_COMPONENTS = 4096;
+
+   private final VisibleField field;
+   private final int numRows;
+   private final int numCols;
+
+   private final byte[] seen;
+   private final byte[] deduced;
+   private final int[] safeStack;
+   private int numSafe = 0;
+   private int numMinesFound = 0;
+   private boolean gameOver = false;
+
+   private final int[] dirtyQueue;       //ring buffer of constraint squares to evaluate again
+   private final boolean[] inDirty;
+   private int dirtyHead = 0;
+   private int dirtySize = 0;
+
+   private final int[] activeCells;
+   private final int[] activePos;
+   private int numActive = 0;
+
+   // scratch space for evaluating constraints: their undecided covered neighbors, and how many mines those hold
+   private final int[] varsA = new int[8];
+   private final int[] varsB = new int[8];
+   private int remaining;
+
+   // scratch space for splitting the frontier into components
+   private final int[] varIndex;        //index of a frontier square in frontierVars, -1 if it isn't one
+   private int[] frontierVars = new int[64];
+   private int[] varParent = new int[64];
+
+   private final HashMap<FrontierComponent, FrontierComponent> componentCache =
+      new HashMap<FrontierComponent, FrontierComponent>();
+
+   private int numSinglePoint = 0;
+   private int numSubset = 0;
+   private int numEnumerated = 0;
+
+
+   /**
+    *  Create a solver for the given game, and read its current state.
+    *
+    *  @param field  the game to solve
+    */
+   public MineSolver(VisibleField field) {
+
+      this.field = field;
+      this.numRows = field.getMineField().numRows();
+      this.numCols = field.getMineField().numCols();
+      int numCells = numRows * numCols;
+      seen = new byte[numCells];
+      deduced = new byte[numCells];
+      safeStack = new int[numCells];
+      dirtyQueue = new int[numCells];
+      inDirty = new boolean[numCells];
+      activeCells = new int[numCells];
+      activePos = new int[numCells];
+      varIndex = new int[numCells];
+      Arrays.fill(varIndex, -1);
+      reset();
+   }
+
+
+   /**
+    *  Returns the game this solver solves.
+    *
+    *  @return the visible field
+    */
+   public VisibleField getField() {
+
+      return field;
+   }
+
+
+   /**
+    *  Forgets everything and reads the whole field again, e.g., after it was reset for a new game.  Takes time
+    *  proportional to the size of the field.
+    */
+   public void reset() {
+
+      Arrays.fill(deduced, UNKNOWN);
+      Arrays.fill(inDirty, false);
+      Arrays.fill(activePos, -1);
+      numSafe = 0;
+      numMinesFound = 0;
+      dirtyHead = 0;
+      dirtySize = 0;
+      numActive = 0;
+      numSinglePoint = 0;
+      numSubset = 0;
+      numEnumerated = 0;
+      componentCache.clear();
+      gameOver = field.isGameOver();
+      for (int cell = 0; cell < seen.length; cell++) {
+         int status = field.getStatus(cell / numCols, cell % numCols);
+         seen[cell] = (byte) status;
+         if (status >= 1 && status <= 8) {
+            addDirty(cell);
+         }
+      }
+      propagate();
+   }
+
+
+   /**
+    *  Reads the squares that changed in the field since the last call (see VisibleField.nextChangedCell) and applies
+    *  the single point and subset rules to the constraints around them.
+    */
+   public void update() {
+
+      for (int cell = field.nextChangedCell(0); cell >= 0; cell = field.nextChangedCell(cell + 1)) {
+         int status = field.getStatus(cell / numCols, cell % numCols);
+         int old = seen[cell];
+         if (status == old) continue;
+         if (old >= 0 && status < 0) {   //covered again: the field was reset for a new game
+            reset();
+            return;
+         }
+         seen[cell] = (byte) status;
+         if (status > 8) {
+            gameOver = true;
+         }
+         else if (status >= 0 && old < 0) {
+            if (status > 0) {
+               addDirty(cell);
+            }
+            dirtyNeighbors(cell);   //one less covered neighbor for them
+         }
+      }
+      if (field.isGameOver()) {
+         gameOver = true;
+      }
+      propagate();
+   }
+
+
+   /**
+    *  Returns a covered square that is certainly safe, or -1 if there is none (or the game is over).  If the cheap
+    *  rules haven't found one, enumerates the frontier first.  Call update() after every move before this.
+    *
+    *  @return a safe covered square (row * numCols + col), or -1
+    */
+   public int nextSafeCell() {
+
+      if (gameOver) return -1;
+      int cell = popSafe();
+      if (cell < 0) {
+         solveFrontier();
+         propagate();
+         cell = popSafe();
+      }
+      return cell;
+   }
+
+
+   /**
+    *  Returns whether the solver has decided that the covered square at (row, col) is safe.
+    *
+    *  @param row  row of the square
+    *  @param col  column of the square
+    *  @return whether it's known to be safe
+    *  PRE: getField().getMineField().inRange(row, col)
+    */
+   public boolean isKnownSafe(int row, int col) {
+
+      int cell = row * numCols + col;
+      return seen[cell] < 0 && deduced[cell] == SAFE;
+   }
+
+
+   /**
+    *  Returns whether the solver has decided that the covered square at (row, col) has a mine.
+    *
+    *  @param row  row of the square
+    *  @param col  column of the square
+    *  @return whether it's known to have a mine
+    *  PRE: getField().getMineField().inRange(row, col)
+    */
+   public boolean isKnownMine(int row, int col) {
+
+      int cell = row * numCols + col;
+      return seen[cell] < 0 && deduced[cell] == MINE;
+   }
+
+
+   /**
+    *  Returns the number of squares decided to have a mine in this game.
+    *
+    *  @return the number of known mines
+    */
+   public int numKnownMines() {
+
+      return numMinesFound;
+   }
+
+
+   /**
+    *  Returns how many squares were decided by the single point rule in this game.  Together with the two below,
+    *  this says how hard the game was: the more squares needed enumeration, the harder.
+    *
+    *  @return the number of squares
+    */
+   public int numSinglePointDeductions() {
+
+      return numSinglePoint;
+   }
+
+
+   /**
+    *  Returns how many squares were decided by the subset rule in this game.
+    *
+    *  @return the number of squares
+    */
+   public int numSubsetDeductions() {
+
+      return numSubset;
+   }
+
+
+   /**
+    *  Returns how many squares were decided by enumerating the frontier in this game.
+    *
+    *  @return the number of squares
+    */
+   public int numEnumerationDeductions() {
+
+      return numEnumerated;
+   }
+
+
+   // package-private: for the probability calculations built on top of the solver
+
+   /**
+    *  Returns the current frontier split into components, each one taken from the cache if it was enumerated before
+    *  (not necessarily enumerated yet otherwise).
+    */
+   FrontierComponent[] frontierComponents() {
+
+      propagate();
+      int numVars = collectFrontier();
+      if (numVars == 0) {
+         return new FrontierComponent[0];
+      }
+
+      // sort the variables by (component root, square), and number the components in that order
+      long[] keys = new long[numVars];
+      for (int i = 0; i < numVars; i++) {
+         keys[i] = ((long) findRoot(i) << 32) | frontierVars[i];
+      }
+      Arrays.sort(keys);
+      int[] componentOf = new int[numVars];     //component of each frontier variable (by index)
+      int[] localIndex = new int[numVars];      //index of each frontier variable in its component
+      int[] componentStart = new int[numVars + 1];
+      int numComponents = 0;
+      for (int i = 0; i < numVars; i++) {
+         if (i == 0 || (keys[i] >>> 32) != (keys[i - 1] >>> 32)) {
+            componentStart[numComponents++] = i;
+         }
+         int var = varIndex[(int) keys[i]];
+         componentOf[var] = numComponents - 1;
+         localIndex[var] = i - componentStart[numComponents - 1];
+      }
+      componentStart[numComponents] = numVars;
+
+      // sort the constraints by (component, square)
+      long[] consKeys = new long[numActive];
+      for (int j = 0; j < numActive; j++) {
+         int cell = activeCells[j];
+         loadConstraint(cell, varsA);
+         consKeys[j] = ((long) componentOf[varIndex[varsA[0]]] << 32) | cell;
+      }
+      Arrays.sort(consKeys);
+
+      FrontierComponent[] components = new FrontierComponent[numComponents];
+      int j = 0;
+      for (int c = 0; c < numComponents; c++) {
+         int[] vars = new int[componentStart[c + 1] - componentStart[c]];
+         for (int i = 0; i < vars.length; i++) {
+            vars[i] = (int) keys[componentStart[c] + i];
+         }
+         int firstCons = j;
+         while (j < numActive && (consKeys[j] >>> 32) == c) {
+            j++;
+         }
+         int[] consCells = new int[j - firstCons];
+         int[] consRems = new int[consCells.length];
+         int[][] consVars = new int[consCells.length][];
+         for (int k = 0; k < consCells.length; k++) {
+            consCells[k] = (int) consKeys[firstCons + k];
+            int n = loadConstraint(consCells[k], varsA);
+            consRems[k] = remaining;
+            consVars[k] = new int[n];
+            for (int v = 0; v < n; v++) {
+               consVars[k][v] = localIndex[varIndex[varsA[v]]];
+            }
+         }
+         FrontierComponent component = new FrontierComponent(vars, consCells, consRems, consVars);
+         FrontierComponent cached = componentCache.get(component);
+         if (cached == null) {
+            if (componentCache.size() >= MAX_CACHED_COMPONENTS) {
+               componentCache.clear();
+            }
+            componentCache.put(component, component);
+            cached = component;
+         }
+         components[c] = cached;
+      }
+
+      for (int i = 0; i < numVars; i++) {
+         varIndex[frontierVars[i]] = -1;
+      }
+      return components;
+   }
+
+
+   /**
+    *  Returns the number of covered squares that are not decided (safe or mine) and are not next to any constraint.
+    */
+   int numOtherCovered(FrontierComponent[] components) {
+
+      int numFrontier = 0;
+      for (FrontierComponent component : components) {
+         numFrontier += component.vars().length;
+      }
+      return field.numCoveredSquares() - numFrontier - numMinesFound - numCoveredSafe();
+   }
+
+
+   // <private methods>
+
+   /**
+      Returns the number of squares deduced safe that are still covered.
+    */
+   private int numCoveredSafe() {
+
+      int num = 0;
+      for (int i = 0; i < numSafe; i++) {
+         if (seen[safeStack[i]] < 0) num++;
+      }
+      return num;
+   }
+
+
+   /**
+      Enumerates every component of the frontier and decides the squares that are safe, or mines, in all their
+      solutions.
+    */
+   private void solveFrontier() {
+
+      for (FrontierComponent component : frontierComponents()) {
+         component.enumerate(MAX_ENUMERATION_STEPS);
+         if (!component.isComplete()) continue;
+         long total = component.totalSolutions();
+         if (total == 0) continue;   //inconsistent (can only happen if the field isn't a real game)
+         int[] vars = component.vars();
+         for (int i = 0; i < vars.length; i++) {
+            if (deduced[vars[i]] != UNKNOWN) continue;
+            long mines = component.totalMineCount(i);
+            if (mines == 0) {
+               markSafe(vars[i]);
+               numEnumerated++;
+            }
+            else if (mines == total) {
+               markMine(vars[i]);
+               numEnumerated++;
+            }
+         }
+      }
+   }
+
+
+   /**
+      Puts the undecided neighbors of every active constraint in frontierVars (each once, with varIndex set) and
+      joins the ones that share a constraint into the same set (varParent).  Returns their number.
+    */
+   private int collectFrontier() {
+
+      int numVars = 0;
+      for (int j = 0; j < numActive; j++) {
+         int n = loadConstraint(activeCells[j], varsA);
+         int first = -1;
+         for (int v = 0; v < n; v++) {
+            int cell = varsA[v];
+            if (varIndex[cell] < 0) {
+               if (numVars == frontierVars.length) {
+                  frontierVars = Arrays.copyOf(frontierVars, 2 * numVars);
+                  varParent = Arrays.copyOf(varParent, 2 * numVars);
+               }
+               varIndex[cell] = numVars;
+               frontierVars[numVars] = cell;
+               varParent[numVars] = numVars;
+               numVars++;
+            }
+            if (first < 0) {
+               first = findRoot(varIndex[cell]);
+            }
+            else {
+               varParent[findRoot(varIndex[cell])] = first;
+            }
+         }
+      }
+      return numVars;
+   }
+
+
+   /**
+      Root of the set of frontier variable i, halving the path on the way.
+    */
+   private int findRoot(int i) {
+
+      while (varParent[i] != i) {
+         varParent[i] = varParent[varParent[i]];
+         i = varParent[i];
+      }
+      return i;
+   }
+
+
+   /**
+      Evaluates the dirty constraints until there are none, deciding squares with the single point and subset rules.
+      Deciding a square makes its neighbors dirty again.
+    */
+   private void propagate() {
+
+      while (dirtySize > 0) {
+         int cell = dirtyQueue[dirtyHead];
+         dirtyHead = (dirtyHead + 1 == dirtyQueue.length) ? 0 : dirtyHead + 1;
+         dirtySize--;
+         inDirty[cell] = false;
+         evaluate(cell);
+      }
+   }
+
+
+   /**
+      Applies the single point rule to the constraint at cell, then the subset rule with the constraints around it.
+    */
+   private void evaluate(int cell) {
+
+      int n = loadConstraint(cell, varsA);
+      int rem = remaining;
+      if (n == 0) {
+         removeActive(cell);
+         return;
+      }
+      addActive(cell);
+      if (rem == 0 || rem == n) {
+         for (int v = 0; v < n; v++) {
+            if (rem == 0) markSafe(varsA[v]);
+            else markMine(varsA[v]);
+         }
+         numSinglePoint += n;
+         return;
+      }
+
+      int row = cell / numCols;
+      int col = cell - row * numCols;
+      for (int otherRow = Math.max(row - 2, 0); otherRow <= Math.min(row + 2, numRows - 1); otherRow++) {
+         for (int otherCol = Math.max(col - 2, 0); otherCol <= Math.min(col + 2, numCols - 1); otherCol++) {
+            int other = otherRow * numCols + otherCol;
+            if (other == cell || activePos[other] < 0) continue;
+            int m = loadConstraint(other, varsB);
+            if (m > n && applySubset(varsA, n, rem, varsB, m, remaining)) return;
+            if (m < n && m > 0 && applySubset(varsB, m, remaining, varsA, n, rem)) return;
+         }
+      }
+   }
+
+
+   /**
+      If small (ns variables, needing smallRem mines) is a subset of big, decides the squares only big has when they
+      must be all safe or all mines.  Returns whether it decided any (the scratch arrays are out of date then).
+    */
+   private boolean applySubset(int[] small, int ns, int smallRem, int[] big, int nb, int bigRem) {
+
+      // both lists are in square order, so merge them
+      int s = 0;
+      for (int b = 0; b < nb && s < ns; b++) {
+         if (big[b] == small[s]) s++;
+         else if (big[b] > small[s]) return false;
+      }
+      if (s < ns) return false;
+
+      int diffRem = bigRem - smallRem;
+      int numDiff = nb - ns;
+      if (diffRem != 0 && diffRem != numDiff) return false;
+      s = 0;
+      for (int b = 0; b < nb; b++) {
+         if (s < ns && big[b] == small[s]) {
+            s++;
+         }
+         else if (diffRem == 0) {
+            markSafe(big[b]);
+         }
+         else {
+            markMine(big[b]);
+         }
+      }
+      numSubset += numDiff;
+      return true;
+   }
+
+
+   /**
+      Puts the undecided covered neighbors of the constraint at cell in vars (in square order), sets remaining to the
+      number of mines among them, and returns their number.
+    */
+   private int loadConstraint(int cell, int[] vars) {
+
+      int row = cell / numCols;
+      int col = cell - row * numCols;
+      int rem = seen[cell];
+      int n = 0;
+      for (int adjRow = Math.max(row - 1, 0); adjRow <= Math.min(row + 1, numRows - 1); adjRow++) {
+         for (int adjCol = Math.max(col - 1, 0); adjCol <= Math.min(col + 1, numCols - 1); adjCol++) {
+            int adj = adjRow * numCols + adjCol;
+            if (seen[adj] >= 0) continue;
+            if (deduced[adj] == MINE) {
+               rem--;
+            }
+            else if (deduced[adj] == UNKNOWN) {
+               vars[n++] = adj;
+            }
+         }
+      }
+      remaining = rem;
+      return n;
+   }
+
+
+   /**
+      Decides that a covered square is safe.
+    */
+   private void markSafe(int cell) {
+
+      if (deduced[cell] != UNKNOWN) return;
+      deduced[cell] = SAFE;
+      safeStack[numSafe++] = cell;
+      dirtyNeighbors(cell);
+   }
+
+
+   /**
+      Decides that a covered square has a mine.
+    */
+   private void markMine(int cell) {
+
+      if (deduced[cell] != UNKNOWN) return;
+      deduced[cell] = MINE;
+      numMinesFound++;
+      dirtyNeighbors(cell);
+   }
+
+
+   /**
+      Takes a square off the safe stack that is still covered, or returns -1.
+    */
+   private int popSafe() {
+
+      while (numSafe > 0) {
+         int cell = safeStack[--numSafe];
+         if (seen[cell] < 0) {
+            safeStack[numSafe++] = cell;   //stays known until it's opened
+            return cell;
+         }
+      }
+      return -1;
+   }
+
+
+   /**
+      Marks the opened number squares around cell as dirty.
+    */
+   private void dirtyNeighbors(int cell) {
+
+      int row = cell / numCols;
+      int col = cell - row * numCols;
+      for (int adjRow = Math.max(row - 1, 0); adjRow <= Math.min(row + 1, numRows - 1); adjRow++) {
+         for (int adjCol = Math.max(col - 1, 0); adjCol <= Math.min(col + 1, numCols - 1); adjCol++) {
+            int adj = adjRow * numCols + adjCol;
+            if (seen[adj] >= 1 && seen[adj] <= 8) {
+               addDirty(adj);
+            }
+         }
+      }
+   }
+
+
+   private void addDirty(int cell) {
+
+      if (inDirty[cell]) return;
+      inDirty[cell] = true;
+      int tail = dirtyHead + dirtySize;
+      if (tail >= dirtyQueue.length) {
+         tail -= dirtyQueue.length;
+      }
+      dirtyQueue[tail] = cell;
+      dirtySize++;
+   }
+
+
+   private void addActive(int cell) {
+
+      if (activePos[cell] >= 0) return;
+      activePos[cell] = numActive;
+      activeCells[numActive++] = cell;
+   }
+
+
+   private void removeActive(int cell) {
+
+      int pos = activePos[cell];
+      if (pos < 0) return;
+      numActive--;
+      activeCells[pos] = activeCells[numActive];
+      activePos[activeCells[pos]] = pos;
+      activePos[cell] = -1;
+   }
+
+}
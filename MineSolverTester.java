@@ -0,0 +1,44 @@
+public class MineSolverTester{
+
+   private static boolean[][] smallMineField = 
+      {{false, false, false, false}, 
+      {true, false, false, false}, 
+      {false, true, true, false},
+      {false, true, false, true}};
+   
+   
+   
+   public static void main(String[] args){
+      
+      MineField mineField = new MineField(smallMineField);
+      VisibleField visField = new VisibleField(mineField);
+      MineSolver solver = new MineSolver(visField);
+      
+      System.out.println("Expected nextSafeCell before any move: -1, Actual: " + solver.nextSafeCell() + ".");
+      
+      visField.uncover(0,3);
+      solver.update();
+      System.out.println("Expected isKnownMine(2,1) (subset rule): true, Actual: " + solver.isKnownMine(2,1) + ".");
+      System.out.println("Expected isKnownMine(1,0): false, Actual: " + solver.isKnownMine(1,0) + ".");
+      System.out.println("Expected nextSafeCell (has to guess): -1, Actual: " + solver.nextSafeCell() + ".");
+      
+      MineProbability probability = new MineProbability(solver);
+      probability.compute();
+      System.out.println("Expected getProbability(0,0): 0.50, Actual: " 
+                         + String.format("%.2f", probability.getProbability(0,0)) + ".");
+      System.out.println("Expected getProbability(2,2): 0.60, Actual: " 
+                         + String.format("%.2f", probability.getProbability(2,2)) + ".");
+      System.out.println("Expected getProbability(3,0) (interior): 0.40, Actual: " 
+                         + String.format("%.2f", probability.getProbability(3,0)) + ".");
+      System.out.println("Expected safestCell: 8, Actual: " + probability.safestCell() + ".");
+      
+      visField.uncover(2,3);
+      solver.update();
+      System.out.println("Expected isKnownMine(2,2) (single point): true, Actual: " + solver.isKnownMine(2,2) + ".");
+      System.out.println("Expected nextSafeCell: 8, Actual: " + solver.nextSafeCell() + ".");
+      System.out.println("Expected isKnownSafe(2,0): true, Actual: " + solver.isKnownSafe(2,0) + ".");
+      
+   }
+
+
+}
@@ -0,0 +1,333 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ *  MoveJournal
+ *  An append-only log of the moves made on a VisibleField (see VisibleField.setJournal): every uncover, chord,
+ *  uncoverAll, cycleGuess and resetGameDisplay is recorded, before it's made, as (op, row, col, timestamp) in
+ *  primitive arrays.  A Player replays the session on its own copy of the game, and can seek to any move, step
+ *  back (undo) and forward (redo).
+ *
+ *  Moves are not enough to replay a game, since the mines are placed by the client (e.g., on the first click), so
+ *  the journal also keeps compact snapshots of the whole game (GameCodec records): before the first move, before
+ *  the first click of every game (after its mines are placed), and every snapshotInterval moves.  Seeking restores
+ *  the closest snapshot at or before the target and only replays the moves after it, so going anywhere in a long
+ *  session re-runs at most snapshotInterval moves (and their flood fills).  An expert snapshot is 336 bytes.
+ */
+
+public class MoveJournal {
+
+   public static final int UNCOVER = 0;
+   public static final int CYCLE_GUESS = 1;
+   public static final int RESET = 2;
+   public static final int CHORD = 3;
+   public static final int UNCOVER_ALL = 4;     //row is the number of squares, col where they start in batchCells
+
+   public static final int DEFAULT_SNAPSHOT_INTERVAL = 64;
+
+   private final int snapshotInterval;
+
+   private byte[] ops = new byte[256];
+   private int[] rows = new int[256];
+   private int[] cols = new int[256];
+   private long[] times = new long[256];
+   private int numMoves = 0;
+
+   private int[] batchCells = new int[64];      //the squares of all the UNCOVER_ALL moves, back to back
+   private int numBatchCells = 0;
+
+   private int[] snapshotMoves = new int[16];   //snapshots[i] is the game just before move snapshotMoves[i]
+   private byte[][] snapshots = new byte[16][];
+   private int numSnapshots = 0;
+   private boolean minesPending = true;         //no click was recorded since the start or the last reset
+
+
+   /**
+    *  Create an empty journal that takes a snapshot every DEFAULT_SNAPSHOT_INTERVAL moves.
+    */
+   public MoveJournal() {
+
+      this(DEFAULT_SNAPSHOT_INTERVAL);
+   }
+
+
+   /**
+    *  Create an empty journal that takes a snapshot every snapshotInterval moves.  Smaller intervals make seeking
+    *  faster and take more memory.
+    *
+    *  @param snapshotInterval  number of moves between snapshots
+    *  PRE: snapshotInterval > 0
+    */
+   public MoveJournal(int snapshotInterval) {
+
+      this.snapshotInterval = snapshotInterval;
+   }
+
+
+   /**
+    *  Records a move about to be made on field (called by VisibleField).
+    *
+    *  @param field  the game the move is made on, still as it was before the move
+    *  @param op  UNCOVER, CYCLE_GUESS, RESET or CHORD
+    *  @param row  row of the square (0 for RESET)
+    *  @param col  column of the square (0 for RESET)
+    */
+   public void record(VisibleField field, int op, int row, int col) {
+
+      snapshotIfNeeded(field, op != CYCLE_GUESS && op != RESET);
+      append(op, row, col);
+      if (op == RESET) {
+         minesPending = true;
+      }
+   }
+
+
+   /**
+    *  Records an uncoverAll move about to be made on field (called by VisibleField).
+    *
+    *  @param field  the game the move is made on, still as it was before the move
+    *  @param cells  the squares to uncover (they are copied)
+    */
+   public void recordAll(VisibleField field, int[] cells) {
+
+      snapshotIfNeeded(field, true);
+      if (numBatchCells + cells.length > batchCells.length) {
+         batchCells = Arrays.copyOf(batchCells, Math.max(2 * batchCells.length, numBatchCells + cells.length));
+      }
+      System.arraycopy(cells, 0, batchCells, numBatchCells, cells.length);
+      append(UNCOVER_ALL, cells.length, numBatchCells);
+      numBatchCells += cells.length;
+   }
+
+
+   /**
+    *  Returns the number of moves recorded.
+    *
+    *  @return the number of moves
+    */
+   public int size() {
+
+      return numMoves;
+   }
+
+
+   /**
+    *  Returns the kind of a move: UNCOVER, CYCLE_GUESS, RESET, CHORD or UNCOVER_ALL.
+    *
+    *  @param move  index of the move
+    *  @return its op
+    *  PRE: 0 <= move < size()
+    */
+   public int op(int move) {
+
+      return ops[move];
+   }
+
+
+   /**
+    *  Returns the row of a move (for UNCOVER_ALL, the number of squares uncovered).
+    *
+    *  @param move  index of the move
+    *  @return its row
+    *  PRE: 0 <= move < size()
+    */
+   public int row(int move) {
+
+      return rows[move];
+   }
+
+
+   /**
+    *  Returns the column of a move (for UNCOVER_ALL, an index only meaningful to the journal).
+    *
+    *  @param move  index of the move
+    *  @return its column
+    *  PRE: 0 <= move < size()
+    */
+   public int col(int move) {
+
+      return cols[move];
+   }
+
+
+   /**
+    *  Returns when a move was recorded, as System.currentTimeMillis().
+    *
+    *  @param move  index of the move
+    *  @return its timestamp
+    *  PRE: 0 <= move < size()
+    */
+   public long timestamp(int move) {
+
+      return times[move];
+   }
+
+
+   /**
+    *  Returns the number of snapshots kept.
+    *
+    *  @return the number of snapshots
+    */
+   public int numSnapshots() {
+
+      return numSnapshots;
+   }
+
+
+   /**
+    *  Returns a new player for this journal, at the start of the session (before move 0).
+    *
+    *  @return the player
+    *  PRE: size() > 0
+    */
+   public Player player() {
+
+      return new Player();
+   }
+
+
+   /**
+      Takes a snapshot of field if this is the first move, a multiple of snapshotInterval, or (for a click) the first
+      click since the start or the last reset, whose mines were placed since the last snapshot.
+    */
+   private void snapshotIfNeeded(VisibleField field, boolean isClick) {
+
+      boolean firstClick = isClick && minesPending;
+      if (isClick) {
+         minesPending = false;
+      }
+      if (numMoves % snapshotInterval != 0 && !firstClick) {
+         return;
+      }
+      if (numSnapshots == snapshots.length) {
+         snapshotMoves = Arrays.copyOf(snapshotMoves, 2 * numSnapshots);
+         snapshots = Arrays.copyOf(snapshots, 2 * numSnapshots);
+      }
+      snapshotMoves[numSnapshots] = numMoves;
+      snapshots[numSnapshots] = GameCodec.toBytes(field);
+      numSnapshots++;
+   }
+
+
+   /**
+      Appends one move to the log, growing the arrays if they are full.
+    */
+   private void append(int op, int row, int col) {
+
+      if (numMoves == ops.length) {
+         ops = Arrays.copyOf(ops, 2 * numMoves);
+         rows = Arrays.copyOf(rows, 2 * numMoves);
+         cols = Arrays.copyOf(cols, 2 * numMoves);
+         times = Arrays.copyOf(times, 2 * numMoves);
+      }
+      ops[numMoves] = (byte) op;
+      rows[numMoves] = row;
+      cols[numMoves] = col;
+      times[numMoves] = System.currentTimeMillis();
+      numMoves++;
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // INNER CLASS Player
+   // replays the journal on a game of its own.  position() moves have been applied to getField(); moves recorded
+   // after the player was made can be replayed too.
+   public class Player {
+
+      private final VisibleField field;
+      private int position = 0;
+
+      /**
+         Creates the player's game from the first snapshot.
+       */
+      private Player() {
+         ByteBuffer first = ByteBuffer.wrap(snapshots[0]);
+         field = new VisibleField(new MineField(first.getInt(GameCodec.ROWS_OFFSET),
+                                                first.getInt(GameCodec.COLS_OFFSET),
+                                                first.getInt(GameCodec.MINES_OFFSET)));
+         GameCodec.decode(first, field);
+      }
+
+      /**
+         Returns the game as it is after position() moves.  It's changed in place by seek, undo and redo (its
+         changed squares tell a view what to redraw); it must not be played on directly.
+       */
+      public VisibleField getField() {
+         return field;
+      }
+
+      /**
+         Returns the number of moves applied to getField().
+       */
+      public int position() {
+         return position;
+      }
+
+      /**
+         Puts getField() in the state it was in just before move target was made (after the first target moves,
+         with the mines placed for move target if it's the first click of a game).
+         PRE: 0 <= target <= size()
+       */
+      public void seek(int target) {
+         int s = Arrays.binarySearch(snapshotMoves, 0, numSnapshots, target);
+         if (s < 0) {
+            s = -s - 2;   //the last snapshot before target
+         }
+         if (target < position || snapshotMoves[s] > position) {
+            GameCodec.decode(ByteBuffer.wrap(snapshots[s]), field);
+            position = snapshotMoves[s];
+         }
+         while (position < target) {
+            apply(position);
+            position++;
+         }
+      }
+
+      /**
+         Goes back one move; returns false (and does nothing) at the start of the session.
+       */
+      public boolean undo() {
+         if (position == 0) {
+            return false;
+         }
+         seek(position - 1);
+         return true;
+      }
+
+      /**
+         Goes forward one move; returns false (and does nothing) after the last move recorded.
+       */
+      public boolean redo() {
+         if (position == numMoves) {
+            return false;
+         }
+         seek(position + 1);
+         return true;
+      }
+
+      /**
+         Makes a recorded move on the player's game.
+       */
+      private void apply(int move) {
+         switch (ops[move]) {
+            case UNCOVER:
+               field.uncover(rows[move], cols[move]);
+               break;
+            case CYCLE_GUESS:
+               field.cycleGuess(rows[move], cols[move]);
+               break;
+            case RESET:
+               field.resetGameDisplay();
+               break;
+            case CHORD:
+               field.chord(rows[move], cols[move]);
+               break;
+            default:
+               field.uncoverAll(Arrays.copyOfRange(batchCells, cols[move], cols[move] + rows[move]));
+               break;
+         }
+      }
+   }
+   //------ END OF INNER CLASS Player ----------------------------------------------------
+
+}
@@ -0,0 +1,189 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  NoGuessGenerator
+ *  Generates minefields that can be solved without guessing: starting from the first square opened, MineSolver can
+ *  always find a square that is certainly safe, until the game is won.  (MineField.setNoGuess makes
+ *  populateMineField(row, col) use it.)
+ *
+ *  It generates candidate boards (with the 3x3 area around the first square kept free, so the first square opens an
+ *  area) and plays each one with the solver, until one is solved.  The candidates are numbered, candidate i being
+ *  the seeded board populateMineField(row, col, true, seed + i * SEED_STEP), and are tried on all the threads of a
+ *  fork/join pool at once.  The board chosen is always the lowest numbered one that is solvable, so the result
+ *  only depends on the seed (drawn from the target minefield's generator), not on the number of threads.
+ *
+ *  It gives up after MAX_ATTEMPTS candidates or MAX_MILLIS milliseconds, whichever comes first, since it usually
+ *  runs on the event thread.  Above MAX_DENSITY mines per location, candidates almost never solve (none of 2000 at
+ *  26% mines, on 16x30 and 30x30 boards), so it would only ever give up there; GameBoardPanel refuses no-guess
+ *  games that dense.
+ */
+
+public class NoGuessGenerator {
+
+   /** The most mines per location that no-guess boards are practical for. */
+   public static final double MAX_DENSITY = 0.25;
+
+   private static final int MAX_ATTEMPTS = 5000;   //gives up (keeping a board that may need guesses) after this many
+   private static final long MAX_MILLIS = 500;     //or after this long
+   private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+   private final ForkJoinPool pool;
+
+
+   /**
+    *  Create a generator that tries candidates on the threads of the common fork/join pool.
+    */
+   public NoGuessGenerator() {
+
+      this(ForkJoinPool.commonPool());
+   }
+
+
+   /**
+    *  Create a generator that tries candidates on the threads of the given pool.
+    *
+    *  @param pool  the pool to generate the candidates in
+    */
+   public NoGuessGenerator(ForkJoinPool pool) {
+
+      this.pool = pool;
+   }
+
+
+   /**
+    *  Removes any current mines from target and puts target.numMines() mines on it so that the game can be won
+    *  without guessing by opening (row, col) first.  No mine is placed in the 3x3 area centered on (row, col).
+    *  The seed of the candidates is taken from target's random generator.  If no candidate is solvable in
+    *  MAX_ATTEMPTS tries or MAX_MILLIS milliseconds (e.g., the board is denser than MAX_DENSITY), the last one tried
+    *  is kept anyway, and false is returned.
+    *
+    *  @param target  the minefield to populate
+    *  @param row  the row of the first square opened
+    *  @param col  the column of the first square opened
+    *  @return whether the board placed can be solved without guessing
+    *  PRE: target.inRange(row, col) and target.numMines() <= target.numRows() * target.numCols() - 9
+    */
+   public boolean populate(MineField target, int row, int col) {
+
+      long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+      long seed = target.getRandomGenerator().nextLong();
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_MILLIS);
+      AtomicInteger nextAttempt = new AtomicInteger();
+      AtomicInteger solved = new AtomicInteger(MAX_ATTEMPTS);   //lowest solvable candidate found so far
+      int numWorkers = pool.getParallelism();
+      pool.invoke(new AttemptTask(target, row, col, seed, deadline, nextAttempt, solved, 0, numWorkers));
+
+      int numTried = Math.min(nextAttempt.get(), MAX_ATTEMPTS);
+      int chosen = (solved.get() < MAX_ATTEMPTS) ? solved.get() : Math.max(numTried - 1, 0);
+      target.populateMineField(row, col, true, seed + chosen * SEED_STEP);
+      if (GameMetrics.ENABLED) {
+         GameMetrics.recordPopulate(chosen + 1, true, System.nanoTime() - start);
+      }
+      return solved.get() < MAX_ATTEMPTS;
+   }
+
+
+   /**
+    *  Returns whether the game on the given minefield can be won without guessing, opening (row, col) first.
+    *  Plays it on a new VisibleField, so the minefield itself is not changed.
+    *
+    *  @param mineField  the minefield, with its mines placed
+    *  @param row  the row of the first square opened
+    *  @param col  the column of the first square opened
+    *  @return whether the solver alone wins the game
+    *  PRE: mineField.inRange(row, col) and there is no mine at (row, col)
+    */
+   public static boolean isSolvable(MineField mineField, int row, int col) {
+
+      VisibleField field = new VisibleField(mineField);
+      return solve(field, new MineSolver(field), row, col);
+   }
+
+
+   /**
+      Plays the game on field, from (row, col), opening only squares the solver knows are safe.  Returns whether
+      that wins it.  field must be a new game (everything covered), and solver is reset first.
+    */
+   private static boolean solve(VisibleField field, MineSolver solver, int row, int col) {
+
+      field.clearChangedCells();
+      solver.reset();
+      int numCols = field.getMineField().numCols();
+      boolean isNotAMine = field.uncover(row, col);
+      while (!field.isGameOver()) {
+         solver.update();
+         field.clearChangedCells();
+         int cell = solver.nextSafeCell();
+         if (cell < 0) {
+            return false;
+         }
+         isNotAMine = field.uncover(cell / numCols, cell % numCols);
+      }
+      return isNotAMine;
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // INNER CLASS AttemptTask
+   // runs workers [fromWorker, toWorker), splitting the range in half until it's one worker.  A worker takes the
+   // next candidate number until it gets one beyond the lowest solvable candidate found so far, or the deadline
+   // passes.  The deadline is checked before taking a candidate, so every candidate taken is tried, and the lowest
+   // solvable one is still found whenever one is.
+   private static class AttemptTask extends RecursiveAction {
+
+      private final MineField target;
+      private final int row;
+      private final int col;
+      private final long seed;
+      private final long deadline;
+      private final AtomicInteger nextAttempt;
+      private final AtomicInteger solved;
+      private final int fromWorker;
+      private final int toWorker;
+
+      public AttemptTask(MineField target, int row, int col, long seed, long deadline, AtomicInteger nextAttempt,
+                         AtomicInteger solved, int fromWorker, int toWorker) {
+         this.target = target;
+         this.row = row;
+         this.col = col;
+         this.seed = seed;
+         this.deadline = deadline;
+         this.nextAttempt = nextAttempt;
+         this.solved = solved;
+         this.fromWorker = fromWorker;
+         this.toWorker = toWorker;
+      }
+
+      /**
+         Run a single worker directly, or fork two halves.
+       */
+      protected void compute() {
+
+         if (toWorker - fromWorker > 1) {
+            int mid = (fromWorker + toWorker) >>> 1;
+            invokeAll(new AttemptTask(target, row, col, seed, deadline, nextAttempt, solved, fromWorker, mid),
+                      new AttemptTask(target, row, col, seed, deadline, nextAttempt, solved, mid, toWorker));
+            return;
+         }
+
+         // each worker has its own minefield, game and solver, reused for all its candidates
+         MineField candidate = new MineField(target.numRows(), target.numCols(), target.numMines());
+         VisibleField field = new VisibleField(candidate);
+         MineSolver solver = new MineSolver(field);
+         int attempt;
+         while (System.nanoTime() - deadline < 0 && (attempt = nextAttempt.getAndIncrement()) < solved.get()) {
+            field.resetGameDisplay();
+            candidate.populateMineField(row, col, true, seed + attempt * SEED_STEP);
+            if (solve(field, solver, row, col)) {
+               solved.accumulateAndGet(attempt, Math::min);
+               return;
+            }
+         }
+      }
+   }
+   //------ END OF INNER CLASS AttemptTask ---------------------------------------------
+
+}
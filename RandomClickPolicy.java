@@ -0,0 +1,33 @@
+import java.util.random.RandomGenerator;
+
+/**
+ *  RandomClickPolicy
+ *  The simplest ClickPolicy: uncovers a covered square chosen uniformly at random every move, never marks a guess.
+ *  Useful as a baseline for the win rate of smarter policies, and to measure the speed of the engine itself.
+ */
+
+public class RandomClickPolicy implements ClickPolicy {
+
+   /**
+    *  Picks random squares until it finds a covered one.  At least numMines() + 1 squares are covered while the game
+    *  is going, so this takes at most about numRows * numCols / numMines tries on average.
+    *
+    *  @param field  the game being played
+    *  @param random  the generator to choose the square with
+    *  @return a covered square, as row * numCols + col
+    */
+   public int nextMove(VisibleField field, RandomGenerator random) {
+
+      MineField mineField = field.getMineField();
+      int numCols = mineField.numCols();
+      int numCells = mineField.numRows() * numCols;
+      while (true) {
+         int cell = random.nextInt(numCells);
+         int status = field.getStatus(cell / numCols, cell % numCols);
+         if (status == VisibleField.COVERED || status == VisibleField.QUESTION) {
+            return cell;
+         }
+      }
+   }
+
+}
@@ -0,0 +1,257 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ *  SimulationRunner
+ *  Plays many games of MineSweeper without any GUI, using MineField and VisibleField directly and a ClickPolicy to
+ *  choose the moves, and reports the win rate, the number of games per second and percentiles of the time taken by
+ *  a game.  Nothing here touches AWT or Swing, so it runs with java.awt.headless=true (e.g., on a CI box).
+ *
+ *  The games are shared out between a fixed pool of threads.  Each thread has its own minefield, visible field and
+ *  policy, and takes games CHUNK_SIZE at a time from a common counter.  Game i is played with its own generator
+ *  seeded from (seed, i), used both to place the mines and by the policy, so the results only depend on the seed,
+ *  not on the number of threads.
+ *
+ *  To run it from the command line:
+ *     java SimulationRunner [numRows numCols numMines [numGames [numThreads [seed [solver|random]]]]]
+ *  With -Dminesweeper.metrics=true it also prints the GameMetrics recorded while playing.
+ */
+
+public class SimulationRunner {
+
+   private static final int CHUNK_SIZE = 64;     //number of games a thread takes from the counter at a time
+   private static final long GAME_SEED_STEP = 0x9E3779B97F4A7C15L;   //spreads the per-game seeds apart
+
+   private final int numRows;
+   private final int numCols;
+   private final int numMines;
+   private final Supplier<? extends ClickPolicy> policyFactory;
+
+
+   /**
+    *  Create a runner for games with the given dimensions and number of mines.
+    *
+    *  @param numRows  number of rows of the minefield, must be positive
+    *  @param numCols  number of columns of the minefield, must be positive
+    *  @param numMines  number of mines of the minefield
+    *  @param policyFactory  creates the policy of each thread
+    *  PRE: 0 < numMines < numRows * numCols
+    */
+   public SimulationRunner(int numRows, int numCols, int numMines, Supplier<? extends ClickPolicy> policyFactory) {
+
+      this.numRows = numRows;
+      this.numCols = numCols;
+      this.numMines = numMines;
+      this.policyFactory = policyFactory;
+   }
+
+
+   /**
+    *  Plays one game to the end on the given field, which must be a random minefield (3-arg constructor) with the
+    *  game reset.  The mines are placed with the given generator after the first move, away from the square chosen,
+    *  like GameBoardPanel does.
+    *
+    *  @param field  the game to play
+    *  @param policy  chooses the moves
+    *  @param random  the generator for the mines and the policy
+    *  @return whether the game was won
+    *  PRE: field was just reset (resetGameDisplay) and its minefield is empty
+    */
+   public static boolean playGame(VisibleField field, ClickPolicy policy, RandomGenerator random) {
+
+      MineField mineField = field.getMineField();
+      int numCols = mineField.numCols();
+      boolean firstMove = true;
+      boolean isNotAMine = true;
+      while (!field.isGameOver()) {
+         int cell = policy.nextMove(field, random);
+         int row = cell / numCols;
+         int col = cell - row * numCols;
+         if (field.isUncovered(row, col) || field.getStatus(row, col) == VisibleField.MINE_GUESS) {
+            throw new IllegalStateException("policy chose a square that can't be uncovered: (" + row + ", " + col + ")");
+         }
+         if (firstMove) {
+            firstMove = false;
+            mineField.setRandomGenerator(random);
+            mineField.populateMineField(row, col);
+         }
+         isNotAMine = field.uncover(row, col);
+      }
+      return isNotAMine;
+   }
+
+
+   /**
+    *  Plays numGames games on numThreads threads and returns the statistics.
+    *
+    *  @param numGames  number of games to play, must be positive
+    *  @param numThreads  number of threads to play them on, must be positive
+    *  @param seed  the seed all the games are generated from
+    *  @return the results
+    */
+   public Result run(int numGames, int numThreads, long seed) {
+
+      long[] gameNanos = new long[numGames];
+      AtomicInteger nextGame = new AtomicInteger();
+      AtomicInteger numWins = new AtomicInteger();
+      ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+      List<Future<?>> workers = new ArrayList<Future<?>>();
+
+      long start = System.nanoTime();
+      for (int i = 0; i < numThreads; i++) {
+         workers.add(pool.submit(() -> playGames(numGames, seed, nextGame, numWins, gameNanos)));
+      }
+      try {
+         for (Future<?> worker : workers) {
+            worker.get();
+         }
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("simulation interrupted", e);
+      }
+      catch (ExecutionException e) {
+         throw new IllegalStateException("a game failed", e.getCause());
+      }
+      finally {
+         pool.shutdownNow();
+      }
+      long elapsedNanos = System.nanoTime() - start;
+
+      return new Result(numGames, numWins.get(), elapsedNanos, gameNanos);
+   }
+
+
+   /**
+      The work of one thread: plays games from the common counter until there are none left.  The time of game i
+      goes in gameNanos[i] (each thread writes different elements, and the pool's completion publishes them).
+    */
+   private void playGames(int numGames, long seed, AtomicInteger nextGame, AtomicInteger numWins, long[] gameNanos) {
+
+      MineField mineField = new MineField(numRows, numCols, numMines);
+      VisibleField field = new VisibleField(mineField);
+      ClickPolicy policy = policyFactory.get();
+      int wins = 0;
+      int first;
+      while ((first = nextGame.getAndAdd(CHUNK_SIZE)) < numGames) {
+         int last = Math.min(first + CHUNK_SIZE, numGames);
+         for (int game = first; game < last; game++) {
+            RandomGenerator random = MineField.seededGenerator(seed + game * GAME_SEED_STEP);
+            long gameStart = System.nanoTime();
+            field.resetGameDisplay();
+            if (playGame(field, policy, random)) {
+               wins++;
+            }
+            gameNanos[game] = System.nanoTime() - gameStart;
+         }
+      }
+      numWins.addAndGet(wins);
+   }
+
+
+   //-------------------------------------------------------------------------------------
+   // NESTED CLASS Result
+   // the statistics of one run
+   public static class Result {
+
+      private final int numGames;
+      private final int numWins;
+      private final long elapsedNanos;
+      private final long[] sortedGameNanos;
+
+      /**
+         Keeps the statistics; gameNanos is sorted in place for the percentiles.
+       */
+      private Result(int numGames, int numWins, long elapsedNanos, long[] gameNanos) {
+         this.numGames = numGames;
+         this.numWins = numWins;
+         this.elapsedNanos = elapsedNanos;
+         Arrays.sort(gameNanos);
+         this.sortedGameNanos = gameNanos;
+      }
+
+      /**
+         Returns the number of games played.
+       */
+      public int numGames() {
+         return numGames;
+      }
+
+      /**
+         Returns the number of games won.
+       */
+      public int numWins() {
+         return numWins;
+      }
+
+      /**
+         Returns the fraction of the games that were won, in [0, 1].
+       */
+      public double winRate() {
+         return (double) numWins / numGames;
+      }
+
+      /**
+         Returns the number of games played per second of wall clock time, over all the threads.
+       */
+      public double gamesPerSecond() {
+         return numGames / (elapsedNanos / 1e9);
+      }
+
+      /**
+         Returns the time (in nanoseconds) that the given fraction of the games took at most, e.g., 0.99 for the 99th
+         percentile (nearest rank).
+         @param fraction  in [0, 1]
+       */
+      public long latencyPercentile(double fraction) {
+         int rank = (int) Math.ceil(fraction * numGames);
+         return sortedGameNanos[Math.max(rank - 1, 0)];
+      }
+
+      /**
+         Returns a one-line summary of the run.
+       */
+      public String toString() {
+         return String.format("%,d games, %,d won (%.2f%%), %,.0f games/sec, latency (us) p50 %.1f p90 %.1f p99 %.1f"
+                              + " p99.9 %.1f max %.1f",
+                              numGames, numWins, 100 * winRate(), gamesPerSecond(),
+                              latencyPercentile(0.5) / 1e3, latencyPercentile(0.9) / 1e3,
+                              latencyPercentile(0.99) / 1e3, latencyPercentile(0.999) / 1e3,
+                              latencyPercentile(1.0) / 1e3);
+      }
+   }
+   //------ END OF NESTED CLASS Result --------------------------------------------------
+
+
+   public static void main(String[] args) {
+
+      System.setProperty("java.awt.headless", "true");   // never needs a display
+
+      int numRows = (args.length >= 3) ? Integer.parseInt(args[0]) : 16;
+      int numCols = (args.length >= 3) ? Integer.parseInt(args[1]) : 30;
+      int numMines = (args.length >= 3) ? Integer.parseInt(args[2]) : 99;
+      int numGames = (args.length >= 4) ? Integer.parseInt(args[3]) : 100000;
+      int numThreads = (args.length >= 5) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+      long seed = (args.length >= 6) ? Long.parseLong(args[5]) : 1L;
+      boolean random = (args.length >= 7) && args[6].equals("random");
+
+      SimulationRunner runner = new SimulationRunner(numRows, numCols, numMines,
+                                                     random ? RandomClickPolicy::new : SolverPolicy::new);
+      System.out.println(numRows + "x" + numCols + "/" + numMines + ", "
+                         + (random ? "RandomClickPolicy" : "SolverPolicy") + ", " + numThreads
+                         + " thread(s), seed " + seed + ":");
+      System.out.println("   " + runner.run(numGames, numThreads, seed));
+      if (GameMetrics.ENABLED) {
+         System.out.print(GameMetrics.snapshot());
+      }
+   }
+
+}
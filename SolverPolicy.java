@@ -0,0 +1,78 @@
+import java.util.random.RandomGenerator;
+
+/**
+ *  SolverPolicy
+ *  A ClickPolicy that plays like a careful player: it uncovers the squares a MineSolver proves safe, and only guesses
+ *  when there is none, choosing the covered square least likely to have a mine (see MineProbability).  The first
+ *  move is the top left corner, which has the fewest neighbors and so the best chance of opening an empty area.
+ *
+ *  It keeps one solver for the field it's playing, updated incrementally from the field's changed squares; since
+ *  nothing else looks at them in a headless game, it clears them after every update.
+ */
+
+public class SolverPolicy implements ClickPolicy {
+
+   private MineSolver solver;
+   private MineProbability probability;
+   private int numGuesses = 0;
+
+
+   /**
+    *  Chooses a square the solver knows is safe, or the safest guess.
+    *
+    *  @param field  the game being played
+    *  @param random  not used: the moves only depend on the field
+    *  @return a covered square, as row * numCols + col
+    */
+   public int nextMove(VisibleField field, RandomGenerator random) {
+
+      MineField mineField = field.getMineField();
+      int numCols = mineField.numCols();
+      int numCells = mineField.numRows() * numCols;
+      if (field.numCoveredSquares() == numCells) {   //new game
+         field.clearChangedCells();
+         if (solver == null || solver.getField() != field) {
+            solver = new MineSolver(field);
+            probability = new MineProbability(solver);
+         }
+         else {
+            solver.reset();
+         }
+         return 0;
+      }
+
+      solver.update();
+      field.clearChangedCells();
+      int cell = solver.nextSafeCell();
+      if (cell >= 0) {
+         return cell;
+      }
+
+      numGuesses++;
+      probability.compute();
+      return probability.safestCell();
+   }
+
+
+   /**
+    *  Returns the number of moves that were guesses (not counting first moves), over all the games played.
+    *
+    *  @return the number of guesses
+    */
+   public int numGuesses() {
+
+      return numGuesses;
+   }
+
+
+   /**
+    *  Returns the solver of the game being played (null before the first move).
+    *
+    *  @return the solver
+    */
+   public MineSolver getSolver() {
+
+      return solver;
+   }
+
+}
@@ -1,16 +1,24 @@
+import java.util.Arrays;
+
 /**
  *  VisibleField class
  *  This is the data that's being displayed at any one point in the game (i.e., visible field, because it's what the
  *  user can see about the minefield). Client can call getStatus(row, col) for any square.
  *  It actually has data about the whole current state of the game, including  
  *  the underlying mine field (getMineField()).  Other accessors related to game status: numMinesLeft(), isGameOver().
- *  It also has mutators related to actions the player could do (resetGameDisplay(), cycleGuess(), uncover()),
- *  and changes the game state accordingly.
+ *  It also has mutators related to actions the player could do (resetGameDisplay(), cycleGuess(), uncover(),
+ *  chord(), uncoverAll()), and changes the game state accordingly.
  * 
  *  It, along with the MineField (accessible in mineField instance variable), forms
  *  the Model for the game application, whereas GameBoardPanel is the View and Controller in the MVC design pattern.
  *  It contains the MineField that it's partially displaying.  That MineField can be accessed (or modified) from 
  *  outside this class via the getMineField accessor.  
+ *
+ *  It also remembers which squares changed status since the last call to clearChangedCells() (see
+ *  numChangedCells() and nextChangedCell()), so a view only needs to redraw those after a move.
+ *  If a MoveJournal is set (setJournal), every move made through the mutators is recorded in it before it's made.
+ *  The status of all the squares is kept in one flat byte array in row-major order (one byte per square), which
+ *  is a quarter of the memory of an int per square and keeps neighboring squares close together in memory.
  */
 
 public class VisibleField {
@@ -43,13 +51,34 @@ public class VisibleField {
     */
    
    
+   private static final int PRESIZED_CELLS = 1 << 16;  //boards up to this many cells get their work arrays at full size.
+   
    // <put instance variables here>
    private MineField mineField;
    private int totalNumMines = 0;
    private int numMinesGuessed = 0;
-   private int [][] status; 
+   private byte [] status;           //status of every cell, row-major: status[row * numCols + col] (all values fit in a byte).
+   private int numRows = 0;
+   private int numCols = 0;
    private int numNotMineOpened = 0; //for keep tracking of the number of non-min SquareViews we've opend.
    private boolean gameOver = false;
+   private int [] workQueue;         //ring buffer of opened empty cells (row * numCols + col) whose neighbors still need opening.
+   private int queueHead = 0;
+   private int queueSize = 0;
+   private long [] changedBits;      //bit set of the cells (row * numCols + col) whose status changed since clearChangedCells.
+   private int numChanged = 0;
+   private int minChangedWord = Integer.MAX_VALUE;  //range of words in changedBits that may have bits set.
+   private int maxChangedWord = -1;
+   private long [] touchedBits;      //bit set of the blocks of 64 cells (cell >>> 6) with a cell not COVERED since the last reset,
+   private int [] touchedBlocks;     //and the list of those blocks, so a reset only visits them.
+   private int numTouchedBlocks = 0;
+   private int [] guessCells;        //every cell that is MINE_GUESS or QUESTION (row * numCols + col), no order.
+   private int numGuessCells = 0;
+   private int numUncovered = 0;     //number of cells in an uncovered state (status >= 0).
+   private int numQuestions = 0;     //number of cells in the QUESTION state.
+   private final int [] chordCells = new int [8];  //the neighbors a chord opens, reused by every call to chord.
+   private MoveJournal journal = null;  //records every move, if set (see setJournal).
+   private int floodDepth = 0;       //breadth first layers of the last flood fill, only counted for GameMetrics.
 
 
    /**
@@ -68,12 +97,24 @@ public class VisibleField {
       //of mines left(by our guessing). May not represent the real mines left.
       this.totalNumMines = mineField.numMines();
       this.numMinesGuessed = numMinesGuessed;
-      //create a 2D array to store status for each cell of mineField, all initialized to COVERED.
-      this.status = new int [mineField.numRows()][mineField.numCols()];      
-      statusInitialization(status);
+      //create a flat array to store status for each cell of mineField (a byte per cell), all initialized to COVERED.
+      this.numRows = mineField.numRows();
+      this.numCols = mineField.numCols();
+      this.status = new byte [numRows * numCols];      
+      this.changedBits = new long [(numRows * numCols + 63) >>> 6];
+      this.touchedBits = new long [(changedBits.length + 63) >>> 6];
+      this.touchedBlocks = new int [changedBits.length];
+      Arrays.fill(status, (byte) COVERED);
+      clearChangedCells();            //a new field starts with nothing changed.
       //gameOver is set to false as default, it will be changed accordingly every time uncover later.
       this.gameOver = gameOver;
       this.numNotMineOpened = numNotMineOpened;
+      //every cell is queued (and guessed) at most once, so numRows * numCols is always enough: allocate that much
+      //up front, so that a game never allocates, unless the board is big.  Then start with the perimeter of the
+      //board, where the breadth first frontier of a flood fill usually stays, and grow once, straight to the full size.
+      int numCells = numRows * numCols;
+      this.workQueue = new int [Math.min(numCells, Math.max(PRESIZED_CELLS, 2 * (numRows + numCols) + 16))];
+      this.guessCells = new int [Math.min(numCells, PRESIZED_CELLS)];
       
    }
    
@@ -82,15 +123,23 @@ public class VisibleField {
     *   Reset the object to its initial state (see constructor comments), using the same underlying
     *   MineField. 
     *   Procedure:(1)set number of mine we've guessed to 0. (2) set the number of non-mine cell we've opened to 0.
-    *   (3)set the 2D int array status to all COVERED. (4)reset the mine field: random, set all cell to false;
+    *   (3)set the status array to all COVERED. (4)reset the mine field: random, set all cell to false;
     *   fixed, do nothing(handled in MineField class). (5) set gameOver flag to false.
+    *   The squares that were not COVERED before are reported as changed (see numChangedCells()).
+    *   Only the parts of the board that were played on are visited, so resetting a game that ended after a few
+    *   clicks is cheap whatever the size of the board (the minefield is cleared in time proportional to its mines).
     *
     */     
    public void resetGameDisplay() {
       
+      if (journal != null){
+         journal.record(this, MoveJournal.RESET, 0, 0);
+      }
       numMinesGuessed = 0;
       numNotMineOpened = 0;
-      statusInitialization(status);
+      numUncovered = 0;
+      numQuestions = 0;
+      statusInitialization();
       mineField.resetEmpty();        //if fixed mine field, do nothing.
       gameOver = false;      
    }
@@ -120,7 +169,7 @@ public class VisibleField {
     */
    public int getStatus(int row, int col) {
       
-      return status[row][col];  
+      return status[row * numCols + col];  
    }
 
    
@@ -152,23 +201,28 @@ public class VisibleField {
     */
    public void cycleGuess(int row, int col) {
       
+      if (journal != null){
+         journal.record(this, MoveJournal.CYCLE_GUESS, row, col);
+      }
       int status = getStatus(row, col);
       
       //If previous state is COVERED, then change it to MINE_GUESS and increment numMinesGuessed by 1.           
       if (status == COVERED){
-         this.status[row][col] = MINE_GUESS;
+         setStatus(row * numCols + col, MINE_GUESS);
          numMinesGuessed++;
+         addGuessCell(row * numCols + col);
       }
       
       //If previous state is MINE_GUESS, then change it to QUESTION and decrement numMinesGuessed by 1.
       else if (status == MINE_GUESS){
-         this.status[row][col] = QUESTION;
+         setStatus(row * numCols + col, QUESTION);
          numMinesGuessed--;
       }
       
       //If previous state is QUESTION, then change it to COVERED.
       else if (status == QUESTION){
-         this.status[row][col] = COVERED; 
+         setStatus(row * numCols + col, COVERED); 
+         removeGuessCell(row * numCols + col);
       }
       
       //Do nothing if current cell in uncovered(positive number).
@@ -191,7 +245,7 @@ public class VisibleField {
     *  
     *  Supplementary concept: uncover method in my design ensures that, if the SquareView being opened is a mine,
     *  then game is over, update every SquareView of the board(correct guess, incorrect guess...), return false directly,
-    *  which means it is a mine. If it is not a mine, then call the private method openMine in a recursive way, 
+    *  which means it is a mine. If it is not a mine, then call the private method openMine, which floods the empty area iteratively, 
     *  then reutrn true. Whether the game is over(all the non-mine SquareViews are opened) or not will be handled in the
     *  openMine method.
     *  
@@ -203,17 +257,43 @@ public class VisibleField {
     */
    public boolean uncover(int row, int col) {
       
+      if (journal != null){
+         journal.record(this, MoveJournal.UNCOVER, row, col);
+      }
+      if (GameMetrics.ENABLED){
+         long start = System.nanoTime();
+         int numOpened = numNotMineOpened;
+         floodDepth = 0;
+         boolean isNotAMine = uncoverSquare(row, col);
+         GameMetrics.recordUncover(row, col, numNotMineOpened - numOpened, floodDepth, isNotAMine,
+                                   System.nanoTime() - start);
+         return isNotAMine;
+      }
+      return uncoverSquare(row, col);
+   }
+ 
+   
+   /**
+    *  Does the work of uncover (without recording the move).
+    *
+    *  @ param row of the square.
+    *  @ param col of the square.
+    *  @ return false iff you uncover a mine at (row, col).
+    */
+   
+   private boolean uncoverSquare(int row, int col) {
+      
       //If the cell being clicked on is a mine, update the status of it to EXPLODED_MINE.
-      //Then set gameOver flag to true, upate the 2D int array status for showing the final results.
+      //Then set gameOver flag to true, upate the status array for showing the final results.
       //Finally return false, so the gameStatusLable in the BoardGamePanel class will adjusted accordingly(You lost!).
       if(mineField.hasMine(row, col)){
-            status[row][col] = EXPLODED_MINE;
+            setStatus(row * numCols + col, EXPLODED_MINE);
             gameOver = true;
             updateAllVisibleField();
             return false;        
       }
       
-      //If the cell being clicked is not a mine, call openMine method in a recursive way.
+      //If the cell being clicked is not a mine, call openMine method to flood the empty area around it.
       //Then return true, so the gameStatusLable in the BoardGamePanel class will adjusted accordingly(You won! if game is over).
       else{
          openMine(row, col);
@@ -223,6 +303,70 @@ public class VisibleField {
    }
  
    
+   /**
+    *  Chords on an opened number square: if the number of MINE_GUESS squares around (row, col) is the same as its
+    *  number of adjacent mines, uncovers all its other covered neighbors (COVERED or QUESTION) at once, as
+    *  uncoverAll does.  Does nothing if the square is not an opened number, or the guesses around it don't add up.
+    *  If one of the guesses was wrong, this uncovers a mine and loses the game.
+    *
+    *  @param row  of the square
+    *  @param col  of the square
+    *  @return false   iff this uncovered a mine
+    *  PRE: getMineField().inRange(row, col)
+    *
+    */
+   public boolean chord(int row, int col) {
+      
+      if (journal != null){
+         journal.record(this, MoveJournal.CHORD, row, col);
+      }
+      int numAdj = getStatus(row, col);
+      if (numAdj < 1 || numAdj > 8){
+         return true;   //covered, empty or game over display: nothing to chord.
+      }
+      
+      int numGuesses = 0;
+      int numCells = 0;
+      for (int adjRow = Math.max(row - 1, 0); adjRow <= Math.min(row + 1, numRows - 1); adjRow++){
+         for (int adjCol = Math.max(col - 1, 0); adjCol <= Math.min(col + 1, numCols - 1); adjCol++){
+            int adjStatus = status[adjRow * numCols + adjCol];
+            if (adjStatus == MINE_GUESS){
+               numGuesses++;
+            }
+            else if (adjStatus < 0){
+               chordCells[numCells] = adjRow * numCols + adjCol;
+               numCells++;
+            }
+         }
+      }
+      
+      if (numGuesses != numAdj || numCells == 0){
+         return true;
+      }
+      return uncoverCells(chordCells, numCells);
+   }
+   
+   
+   /**
+    *  Uncovers a whole set of squares as one move.  Each square is handled like uncover(row, col) would, but all of
+    *  them are opened in a single flood fill, and whether the game is won or lost is only checked once at the end.
+    *  Squares that are already uncovered or are MINE_GUESS are skipped.  Every mine in the set becomes an
+    *  EXPLODED_MINE; if there is at least one, the game is lost.
+    *  
+    *  @param cells  the squares to uncover, each one as row * getMineField().numCols() + col
+    *  @return false   iff a mine was uncovered
+    *  PRE: every cell is in [0, numRows * numCols)
+    *
+    */
+   public boolean uncoverAll(int[] cells) {
+      
+      if (journal != null){
+         journal.recordAll(this, cells);
+      }
+      return uncoverCells(cells, cells.length);
+   }
+   
+   
    /**
     *  Returns whether the game is over.
     *  (Note: This is not a mutator.)
@@ -262,28 +406,262 @@ public class VisibleField {
    }
    
  
+   /**
+    *  Returns the number of squares that are still covered (COVERED, MINE_GUESS or QUESTION).
+    *  Kept up to date as the game goes, so this takes constant time (as do the other statistics below).
+    *
+    *  @return the number of covered squares
+    */
+   public int numCoveredSquares() {
+      
+      return numRows * numCols - numUncovered;
+   }
+   
+   
+   /**
+    *  Returns the number of squares currently marked with a question mark (QUESTION).
+    *
+    *  @return the number of question marks
+    */
+   public int numQuestionMarks() {
+      
+      return numQuestions;
+   }
+   
+   
+   /**
+    *  Returns the number of squares currently marked as mine guesses, i.e. the number numMinesLeft() is based on.
+    *
+    *  @return the number of mine guesses
+    */
+   public int numMineGuesses() {
+      
+      return numMinesGuessed;
+   }
+   
+   
+   /**
+    *  Returns the number of non-mine squares opened so far in this game.
+    *
+    *  @return the number of safe squares opened
+    */
+   public int numSafeSquaresOpened() {
+      
+      return numNotMineOpened;
+   }
+   
+   
+   /**
+    *  Returns the number of non-mine squares that still have to be opened to win the game (based on the
+    *  minefield's numMines(), like the win condition).
+    *
+    *  @return the number of safe squares not opened yet
+    */
+   public int numSafeSquaresLeft() {
+      
+      return numRows * numCols - totalNumMines - numNotMineOpened;
+   }
+   
+   
+   /**
+    *  Returns the number of squares whose status changed since the last call to clearChangedCells() (or since this
+    *  VisibleField was created).  A square that changed more than once is only counted once.
+    *
+    *  @return the number of changed squares
+    */
+   public int numChangedCells() {
+      
+      return numChanged;
+   }
+   
+   
+   /**
+    *  Finds the next square, at or after the given cell in row-major order, whose status changed since the last call
+    *  to clearChangedCells().  Cells are numbered row * getMineField().numCols() + col.  To visit all the changed
+    *  squares, start from 0 and continue from (the returned cell + 1) until it returns -1.
+    *
+    *  @param fromCell  the cell to start looking at (0 or more)
+    *  @return the first changed cell >= fromCell, or -1 if there is none
+    */
+   public int nextChangedCell(int fromCell) {
+      
+      int word = Math.max(fromCell >>> 6, minChangedWord);
+      if (word > maxChangedWord){
+         return -1;
+      }
+      long bits = changedBits[word];
+      if (word == (fromCell >>> 6)){
+         bits &= -1L << fromCell;   //ignore the cells before fromCell in its own word.
+      }
+      while (bits == 0){
+         word++;
+         if (word > maxChangedWord){
+            return -1;
+         }
+         bits = changedBits[word];
+      }
+      return word * 64 + Long.numberOfTrailingZeros(bits);
+   }
+   
+   
+   /**
+    *  Forgets which squares changed, e.g., once a view has been updated to match them.
+    *  Only costs as much as the range of cells that had changed.
+    */
+   public void clearChangedCells() {
+      
+      for (int word = minChangedWord; word <= maxChangedWord; word++){
+         changedBits[word] = 0L;
+      }
+      numChanged = 0;
+      minChangedWord = Integer.MAX_VALUE;
+      maxChangedWord = -1;
+   }
+   
+   
+   /**
+    *  Sets the journal that records the moves made on this field from now on, or null to stop recording.
+    *
+    *  @param journal  the journal, or null
+    *
+    */
+   public void setJournal(MoveJournal journal) {
+      
+      this.journal = journal;
+   }
+   
+   
+   /**
+    *  Returns the journal recording the moves made on this field (null if there's none).
+    *
+    *  @return the journal
+    *
+    */
+   public MoveJournal getJournal() {
+      
+      return journal;
+   }
+   
+   
+   /**
+    *  Sets the status of a square when restoring a saved game (see GameCodec), keeping the list of guessed squares
+    *  and the counters of uncovered squares and question marks up to date (an uncovered square may be covered again,
+    *  when a MoveJournal goes back to an earlier move).  The other counters are set with restoreCounters.
+    *
+    *  @param cell  the square (row * numCols + col)
+    *  @param newStatus  its saved status
+    */
+   void restoreStatus(int cell, int newStatus) {
+      
+      if (status[cell] >= 0 && newStatus < 0){
+         numUncovered--;     //setStatus only counts squares being uncovered
+      }
+      boolean wasGuess = (status[cell] == MINE_GUESS || status[cell] == QUESTION);
+      boolean isGuess = (newStatus == MINE_GUESS || newStatus == QUESTION);
+      if (isGuess && !wasGuess){
+         addGuessCell(cell);
+      }
+      else if (wasGuess && !isGuess){
+         removeGuessCell(cell);
+      }
+      setStatus(cell, newStatus);
+   }
+   
+   
+   /**
+    *  Sets the counters that can't be worked out from the statuses alone, when restoring a saved game.
+    *
+    *  @param numMinesGuessed  the number of mine guesses counted by cycleGuess
+    *  @param numNotMineOpened  the number of non-mine squares opened
+    *  @param gameOver  whether the game had ended
+    */
+   void restoreCounters(int numMinesGuessed, int numNotMineOpened, boolean gameOver) {
+      
+      this.numMinesGuessed = numMinesGuessed;
+      this.numNotMineOpened = numNotMineOpened;
+      this.gameOver = gameOver;
+   }
+   
+   
    // <put private methods here>
    
    /**
-    *  A 2D array representing current status of each SquareView of VisibleField and is set to COVERED in default.
-    *  Iterate the whole 2D array and update the whole array to be COVERED.
-    *  Used when restting the game to initial state or constructing the VisibleField.
-    * 
-    *  @param status 2D array representing current status of each SquareView of VisibleField.
+    *  Changes the status of a cell, keeping the counters of uncovered squares and question marks up to date and
+    *  recording the cell as changed.  All the status changes made during a game go through here.
+    *
+    *  @ param cell the square to change (row * numCols + col).
+    *  @ param newStatus its new status.
+    */
+   
+   private void setStatus(int cell, int newStatus){
+      
+      int oldStatus = status[cell];
+      if (oldStatus < 0 && newStatus >= 0){
+         numUncovered++;
+      }
+      if (oldStatus == QUESTION){
+         numQuestions--;
+      }
+      if (newStatus == QUESTION){
+         numQuestions++;
+      }
+      status[cell] = (byte) newStatus;
+      markChanged(cell);
+      int block = cell >>> 6;
+      if ((touchedBits[block >>> 6] & (1L << block)) == 0){
+         touchedBits[block >>> 6] |= 1L << block;
+         touchedBlocks[numTouchedBlocks] = block;
+         numTouchedBlocks++;
+      }
+   }
+   
+   /**
+    *  Records that the status of a cell changed, for numChangedCells() and nextChangedCell().
+    *
+    *  @ param cell the square that changed (row * numCols + col).
+    */
+   
+   private void markChanged(int cell){
+      
+      int word = cell >>> 6;
+      long bit = 1L << cell;
+      if ((changedBits[word] & bit) == 0){
+         changedBits[word] |= bit;
+         numChanged++;
+         minChangedWord = Math.min(minChangedWord, word);
+         maxChangedWord = Math.max(maxChangedWord, word);
+      }
+   }
+   
+   /**
+    *  The array status represents current status of each SquareView of VisibleField and is set to COVERED in default.
+    *  Update the whole array to be COVERED, recording the cells that were not COVERED as changed.  Only the
+    *  blocks of 64 cells that had a status set since the last reset (touchedBlocks) can have such cells.
+    *  Used when restting the game to initial state.
     * 
     */
    
-   private void statusInitialization(int[][] status){
+   private void statusInitialization(){
    
-      for(int row = 0; row < status.length; row++ ){
-         for ( int col = 0; col < status[0].length; col++ ){
-           status[row][col] = COVERED;
+      numGuessCells = 0;
+      int numCells = numRows * numCols;
+      for (int i = 0; i < numTouchedBlocks; i++){
+         int block = touchedBlocks[i];
+         touchedBits[block >>> 6] &= ~(1L << block);
+         int end = Math.min((block + 1) << 6, numCells);
+         for (int cell = block << 6; cell < end; cell++){
+            if (status[cell] != COVERED){
+               status[cell] = COVERED;
+               markChanged(cell);
+            }
          }
       }
+      numTouchedBlocks = 0;
    }
    
    /**
-    *  Iterate the whole 2D array status to update the current status of each SquareView of VisibleField.
+    *  Update the status of the SquareViews that change when the game is lost.  Only visits the guessed SquareViews
+    *  (guessCells) and the mines (the mine locations of the MineField), not the whole board.
     *  The one marked as MINE_GUESS, but not a mine will be changed to INCORRECT_GUESS
     *  The one marked as QUESTION, and it IS a mine in the end, will be changed to MINE for later display.
     *  The one marked as QUESTION, but it is NOT a mine actually, we will do nothing here.
@@ -295,39 +673,44 @@ public class VisibleField {
    
    private void updateAllVisibleField() {
       
-      for (int row = 0; row < status.length; row++) {
-         for (int col = 0; col < status[0].length; col++) {
-            
-            //Mark as MINE_GUESS but actually not a mine, change its status to INCORRECT_GUESS.
-            //Later when game is over, will call updateAllSquaresViews to show the final status.
-            if (status[row][col] == MINE_GUESS){
-               if (!mineField.hasMine(row, col)){
-                  status[row][col] = INCORRECT_GUESS;
-               } 
-            } 
-            
-            //When losing, cells that are marked QUESTION but are mines will be changed to MINE.
-            else if(status[row][col] == QUESTION && mineField.hasMine(row, col)){
-               status[row][col] = MINE;
-            }
-            
-            //WHen losing, cells that are still covered will be changed to MINE
-            else if (status[row][col] == COVERED){
-               if (mineField.hasMine(row, col)){
-                  status[row][col] = MINE;
-               }
-               
-            }
+      long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+      //Mark as MINE_GUESS but actually not a mine, change its status to INCORRECT_GUESS.
+      //Later when game is over, GameBoardPanel will update the views of the changed squares to show the final status.
+      for (int i = 0; i < numGuessCells; i++) {
+         int cell = guessCells[i];
+         if (status[cell] == MINE_GUESS && !mineField.hasMine(cell / numCols, cell % numCols)){
+            setStatus(cell, INCORRECT_GUESS);
+         }
+      }
+      
+      //When losing, mines that are still covered or marked QUESTION will be changed to MINE.
+      for (int i = 0; i < mineField.numMineLocations(); i++) {
+         int cell = mineField.getMineLocation(i);
+         if (status[cell] == COVERED || status[cell] == QUESTION){
+            setStatus(cell, MINE);
          }
       }
       
+      //Keep only the squares that are still guessed in guessCells, so undoing the loss doesn't add them twice.
+      int numStillGuessed = 0;
+      for (int i = 0; i < numGuessCells; i++) {
+         int cell = guessCells[i];
+         if (status[cell] == MINE_GUESS || status[cell] == QUESTION){
+            guessCells[numStillGuessed] = cell;
+            numStillGuessed++;
+         }
+      }
+      numGuessCells = numStillGuessed;
+      if (GameMetrics.ENABLED){
+         GameMetrics.recordSweep(false, System.nanoTime() - start);
+      }
    }
    
    /**
     *  Similar version with updateAllVisible, triumph here stands for won the game.
     *  Hence the way to show SquareViews that has a mine will differ from the way of updateAllVisible.
     *  Here, the SquareViews that has a mine beneath it and being either marked as QUESTION or uncovered
-    *  will be changed to status of MINE_GUESS(yellow color).
+    *  will be changed to status of MINE_GUESS(yellow color).  Only visits the mines.
     *  Used when winning the game.
     * 
     *  PRE:MUST be used in a won game.
@@ -335,46 +718,64 @@ public class VisibleField {
    
    private void updateTriumphAllVisibleField() {
       
-      for (int row = 0; row < status.length; row++) {
-         for (int col = 0; col < status[0].length; col++) {
-            
-            if(status[row][col] == QUESTION && mineField.hasMine(row, col)){
-               status[row][col] = MINE_GUESS;
-            }
-            
-            //When winning the game, the cells that are marked as COVERED will be changed to MINE_GUESS.
-            else if (status[row][col] == COVERED){
-               if (mineField.hasMine(row, col)){
-                  status[row][col] = MINE_GUESS;
-               }              
-            }
+      long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+      for (int i = 0; i < mineField.numMineLocations(); i++) {
+         int cell = mineField.getMineLocation(i);
+         if (status[cell] == COVERED){
+            setStatus(cell, MINE_GUESS);
+            addGuessCell(cell);
+         }
+         else if (status[cell] == QUESTION){
+            setStatus(cell, MINE_GUESS);
          }
       }
-      
+      if (GameMetrics.ENABLED){
+         GameMetrics.recordSweep(true, System.nanoTime() - start);
+      }
    }  
       
    /**
-    *  Used when recursively uncover the cells. Check the current cell being uncovered if has adjacent mines.
-    *  If so, stop uncover. Otherwise, keep uncover cells recursively.
+    *  Adds a cell to guessCells, when it goes from COVERED to MINE_GUESS (by cycleGuess, or when the game is won).  If the array is full (only possible on a
+    *  big board, see the constructor), it grows once, to hold every cell.
     *
-    *  @ param row the row of current SquareView being checked.
-    *  @ param col the column of current SquareView being checked.
-    *  @ return whether current SquareView has mine or not.
-    */ 
+    *  @ param cell the cell that was guessed (row * numCols + col).
+    */
    
+   private void addGuessCell(int cell){
+      
+      if (numGuessCells == guessCells.length){
+         guessCells = Arrays.copyOf(guessCells, numRows * numCols);
+      }
+      guessCells[numGuessCells] = cell;
+      numGuessCells++;
+   }
+   
+   /**
+    *  Removes a cell from guessCells, when it goes from QUESTION back to COVERED or is uncovered, by moving the last
+    *  one into its place.  Searches from the end, since the cell being unmarked was usually marked recently.
+    *
+    *  @ param cell the cell that is no longer guessed (row * numCols + col).
+    */
    
-   private boolean hasAdjacent(int row, int col){
+   private void removeGuessCell(int cell){
       
-      if(mineField.numAdjacentMines(row, col) > 0){
-         return true; 
+      for (int i = numGuessCells - 1; i >= 0; i--){
+         if (guessCells[i] == cell){
+            numGuessCells--;
+            guessCells[i] = guessCells[numGuessCells];
+            return;
+         }
       }
-      else{ return false;}
    }
    
    /**
-    *  This method recursively open current and neighboring SquareViews until it reaches the SquareView that 
-    *  has adjacent mines. It will also keep track of the number of opened non-mine SquareViews, and if all
-    *  the non-mine SquareViews are opened then the game is over.
+    *  Opens the SquareView at (row, col) and, if it has no adjacent mines, floods outward through the empty
+    *  region around it until it reaches SquareViews that have adjacent mines.  Instead of recursing (which
+    *  overflows the thread stack on big empty boards) it works through an explicit queue of empty SquareViews
+    *  (breadth first), so the stack depth stays constant whatever the board size.
+    *  A SquareView gets its status (and is counted in numNotMineOpened) at the moment it is reached, so every
+    *  SquareView is visited at most once and the queue only ever holds empty SquareViews still to expand.
+    *  If all the non-mine SquareViews are opened after this click then the game is over.
     *
     *  @ param row the row of SquareView being opened.
     *  @ param col the column of SquareView being opened.
@@ -383,58 +784,195 @@ public class VisibleField {
    
    private void openMine(int row, int col){      
 
-      int numSquares = mineField.numRows() * mineField.numCols();
+      queueHead = 0;
+      queueSize = 0;
+      openSquare(row, col);
+      floodQueue();
+      checkWin();
+   }
+   
+   /**
+    *  Uncovers the first numCells cells of cells as one move (see uncoverAll): the mines become EXPLODED_MINE, the
+    *  other squares are opened, then the flood fill runs once for all of them, and the end of the game is checked
+    *  once.
+    *
+    *  @ param cells the squares to uncover (row * numCols + col).
+    *  @ param numCells how many of them to use.
+    *  @ return false iff a mine was uncovered.
+    */
+   
+   private boolean uncoverCells(int[] cells, int numCells){
       
-      //Every time visit current SquareView, check if it is in range or is covered, if not, return directly.
-      //Also return directly if current SquareView visited is marked as MINE_GUES(when doing recursion).
-      //If it is already uncovered, so we don't need to imcrement numNotMineOpened. 
-      //We won't reach game over condiditon if we don't keep track of the numNotMineOpened correctly otherwise.
-      if (!mineField.inRange(row, col) || isUncovered(row, col) || getStatus(row, col) == MINE_GUESS){
-         return;
+      if (GameMetrics.ENABLED){
+         long start = System.nanoTime();
+         int numOpened = numNotMineOpened;
+         floodDepth = 0;
+         boolean isNotAMine = openCells(cells, numCells);
+         GameMetrics.recordUncover(-1, -1, numNotMineOpened - numOpened, floodDepth, isNotAMine,
+                                   System.nanoTime() - start);
+         return isNotAMine;
       }
+      return openCells(cells, numCells);
+   }
+   
+   /**
+    *  Does the work of uncoverCells (without recording metrics).
+    *
+    *  @ param cells the squares to uncover (row * numCols + col).
+    *  @ param numCells how many of them to use.
+    *  @ return false iff a mine was uncovered.
+    */
+   
+   private boolean openCells(int[] cells, int numCells){
       
-      int numAdj = mineField.numAdjacentMines(row, col);
-      
-      //Every time visit current SquareView that is in range, check the number of adjacent mines first.
-      //Then store it into status, and increment numNotMineOpened by 1.
-      //There are 2 reasons:
-      //First, next time we visit this already uncovered SquareView when triggered by neighboring SquareView, 
-      //the recursion will stop at first if statement(line 398).
-      //The other one is that we must always know the number of adjacent mines of current SquareView, so we 
-      //can check if it has adjacent mines in the next if statement(line 419) to prevent the program from infinite recursion.
-      status[row][col] = numAdj;
-      numNotMineOpened++;
+      queueHead = 0;
+      queueSize = 0;
+      boolean hitMine = false;
+      for (int i = 0; i < numCells; i++){
+         int cell = cells[i];
+         int curStatus = status[cell];
+         if (curStatus >= 0 || curStatus == MINE_GUESS){
+            continue;
+         }
+         int row = cell / numCols;
+         int col = cell - row * numCols;
+         if (mineField.hasMine(row, col)){
+            setStatus(cell, EXPLODED_MINE);
+            hitMine = true;
+         }
+         else{
+            openSquare(row, col);   //just queues it if it's empty, the flood fill below does the rest.
+         }
+      }
+      floodQueue();
       
-      //If current SquareView has adjacent mines, then stop uncover neighboring SquareViews.
-      //It not until we reach the boudary of cells having adjacent mines, the game board panel update won't update it's 
-      //view(all the cells that we uncover in this left click, either number 1-8 or an unvered cell with no number) to the user.
-      //Finally we check if all the non-mine cells are opened after this left click(i.e. if it is the last click), 
-      //if so, set gameOver to true.
-      if (hasAdjacent(row, col)){
-         if(numSquares - numNotMineOpened == totalNumMines){
+      if (hitMine){
          gameOver = true;
-         updateTriumphAllVisibleField();
-         }
-         return;
+         updateAllVisibleField();
+         return false;
       }
+      checkWin();
+      return true;
+   }
+   
+   /**
+    *  Opens all the neighbors of the empty SquareViews in the queue, adding the ones that are empty too, until the
+    *  queue is empty (the flood fill part of openMine).
+    */
+   
+   private void floodQueue(){
       
+      int layerLeft = queueSize;     //cells of the current breadth first layer still in the queue (for floodDepth).
+      //Every SquareView in the queue is an already opened empty one, so all its neighbors have to be opened too.
+      while (queueSize > 0){
+         int cell = pollQueue();
+         int curRow = cell / numCols;
+         int curCol = cell - curRow * numCols;
+         int minRow = Math.max(curRow - 1, 0);
+         int maxRow = Math.min(curRow + 1, numRows - 1);
+         int minCol = Math.max(curCol - 1, 0);
+         int maxCol = Math.min(curCol + 1, numCols - 1);
+         for (int adjRow = minRow; adjRow <= maxRow; adjRow++){
+            for (int adjCol = minCol; adjCol <= maxCol; adjCol++){
+               openSquare(adjRow, adjCol);
+            }
+         }
+         if (GameMetrics.ENABLED){
+            layerLeft--;
+            if (layerLeft == 0){   //the queue now holds exactly the next layer
+               floodDepth++;
+               layerLeft = queueSize;
+            }
+         }
+      }
+   }
+   
+   /**
+    *  Ends the game with a win if all the non-mine SquareViews are opened.  Used at the end of every uncover.
+    */
+   
+   private void checkWin(){
       
       //Check if all the non-mine SquareViews are opened after current uncover, if so, game is over.
-      if(numSquares - numNotMineOpened == totalNumMines){
+      if(numRows * numCols - numNotMineOpened == totalNumMines){
          gameOver = true;
          updateTriumphAllVisibleField();
+      }
+   }
+   
+   /**
+    *  Used by openMine for a single SquareView. Skips it if it is already uncovered or marked as MINE_GUESS.
+    *  Otherwise stores its number of adjacent mines into status (dropping it from guessCells if it was a QUESTION),
+    *  increments numNotMineOpened by 1 and, if it has no adjacent mines, adds it to the queue so its neighbors get
+    *  opened as well.
+    *
+    *  @ param row the row of SquareView being opened.
+    *  @ param col the column of SquareView being opened.
+    *  PRE: getMineField().inRange(row, col), and there is no mine at (row, col) unless it's a MINE_GUESS.
+    */
+   
+   private void openSquare(int row, int col){
+      
+      int cell = row * numCols + col;
+      int curStatus = status[cell];
+      if (curStatus >= 0 || curStatus == MINE_GUESS){
          return;
       }
+      if (curStatus == QUESTION){
+         removeGuessCell(cell);
+      }
+      
+      int numAdj = mineField.numAdjacentMines(row, col);
+      setStatus(cell, numAdj);
+      numNotMineOpened++;
+      
+      if (numAdj == 0){
+         offerQueue(cell);
+      }
+   }
+   
+   /**
+    *  Appends a cell (row * numCols + col) to the end of the flood fill queue, a ring buffer that grows to hold every
+    *  cell when it is full (only possible on a big board, see the constructor).  The buffer is kept between calls to
+    *  uncover, so it grows at most once.
+    *
+    *  @ param cell the index of the cell to add.
+    */
+   
+   private void offerQueue(int cell){
+      
+      if (queueSize == workQueue.length){
+         int[] bigger = new int[numRows * numCols];
+         for (int i = 0; i < queueSize; i++){
+            bigger[i] = workQueue[(queueHead + i) % workQueue.length];
+         }
+         workQueue = bigger;
+         queueHead = 0;
+      }
+      int tail = queueHead + queueSize;
+      if (tail >= workQueue.length){
+         tail -= workQueue.length;
+      }
+      workQueue[tail] = cell;
+      queueSize++;
+   }
+   
+   /**
+    *  Removes and returns the cell at the front of the flood fill queue.
+    *
+    *  @ return the index (row * numCols + col) of the cell.
+    *  PRE: queueSize > 0
+    */
+   
+   private int pollQueue(){
       
-      //If current SquareView has no adjacent mines, then keep recursion.     
-      openMine(row - 1, col - 1);
-      openMine(row - 1, col);
-      openMine(row - 1, col + 1);
-      openMine(row, col - 1);
-      openMine(row, col + 1);
-      openMine(row + 1, col - 1);
-      openMine(row + 1, col);
-      openMine(row + 1, col + 1);
+      int cell = workQueue[queueHead];
+      queueHead++;
+      if (queueHead == workQueue.length){
+         queueHead = 0;
+      }
+      queueSize--;
+      return cell;
    }
    
 }
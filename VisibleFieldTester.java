@@ -35,6 +35,196 @@ public class VisibleFieldTester{
       
       System.out.println("Expected isGameOver: false, Actual: " + visField.isGameOver() + ".");
       
+      visField.cycleGuess(3,2);
+      visField.cycleGuess(3,2);
+      visField.uncover(0,3);
+      System.out.println("Expected numQuestionMarks: 1, Actual: " + visField.numQuestionMarks() + ".");
+      System.out.println("Expected numCoveredSquares: 10, Actual: " + visField.numCoveredSquares() + ".");
+      System.out.println("Expected numSafeSquaresLeft: 5, Actual: " + visField.numSafeSquaresLeft() + ".");
+      
+      visField.cycleGuess(2,2);
+      System.out.println("Expected chord(1,3): true, Actual: " + visField.chord(1,3) + ".");
+      System.out.println("Expected getStatus[2][3] after chord: 2, Actual getStatus[2][3]: " + visField.getStatus(2,3) + ".");
+      System.out.println("Expected uncoverAll: true, Actual: " + visField.uncoverAll(new int[] {0, 8, 12, 14}) + ".");
+      System.out.println("Expected isGameOver after uncoverAll: true, Actual: " + visField.isGameOver() + ".");
+      
+      VisibleField restored = GameCodec.fromBytes(GameCodec.toBytes(visField));
+      System.out.println("Expected restored getStatus[2][3]: 2, Actual: " + restored.getStatus(2,3) + ".");
+      System.out.println("Expected restored getStatus[1][0]: -2, Actual: " + restored.getStatus(1,0) + ".");
+      System.out.println("Expected restored isGameOver: true, Actual: " + restored.isGameOver() + ".");
+      System.out.println("Expected restored numMinesLeft: " + visField.numMinesLeft() + ", Actual: " 
+                         + restored.numMinesLeft() + ".");
+      
+      VisibleField journaled = new VisibleField(visField.getMineField());
+      MoveJournal journal = new MoveJournal(2);
+      journaled.setJournal(journal);
+      journaled.uncover(0,3);
+      journaled.cycleGuess(2,2);
+      journaled.chord(1,3);
+      MoveJournal.Player player = journal.player();
+      player.seek(journal.size());
+      System.out.println("Expected journal size: 3, Actual: " + journal.size() + ".");
+      System.out.println("Expected replayed getStatus[2][3]: 2, Actual: " + player.getField().getStatus(2,3) + ".");
+      player.seek(1);
+      System.out.println("Expected getStatus[2][2] at move 1: -1, Actual: " + player.getField().getStatus(2,2) + ".");
+      player.redo();
+      System.out.println("Expected getStatus[2][2] after redo: -2, Actual: " + player.getField().getStatus(2,2) + ".");
+      player.undo();
+      player.undo();
+      System.out.println("Expected numCoveredSquares at move 0: 16, Actual: " 
+                         + player.getField().numCoveredSquares() + ".");
+
+      //A "?" square opened by the flood fill, and a wrong guess swept by a loss, must leave the guessed squares, or
+      //every undo/redo adds them again until the list overflows (3x3 boards, so 9 cycles were enough to overflow).
+      boolean[][] cornerMine = {{false, false, false}, {false, false, false}, {false, false, true}};
+      VisibleField questioned = new VisibleField(new MineField(cornerMine));
+      MoveJournal questionJournal = new MoveJournal(1);
+      questioned.setJournal(questionJournal);
+      questioned.cycleGuess(0,0);
+      questioned.cycleGuess(0,0);
+      questioned.uncover(0,1);
+      System.out.println("Expected \"?\" square after the flood fill: 0, numQuestionMarks: 0, Actual: "
+                         + questioned.getStatus(0,0) + ", " + questioned.numQuestionMarks() + ".");
+      System.out.println("Expected after 20 undo/redo: " + undoRedo(questionJournal, 20) + ".");
+      VisibleField lost = new VisibleField(new MineField(cornerMine));
+      MoveJournal lostJournal = new MoveJournal(1);
+      lost.setJournal(lostJournal);
+      lost.cycleGuess(0,0);
+      lost.uncover(2,2);
+      System.out.println("Expected after 20 undo/redo of a loss: " + undoRedo(lostJournal, 20) + ".");
+
+      GamePool pool = new GamePool(4, 4, 3, 1);
+      VisibleField pooled = pool.acquire();
+      pooled.getMineField().populateMineField(0, 0, true);
+      pooled.uncover(0, 0);
+      pooled.cycleGuess(3, 3);
+      pool.release(pooled);
+      System.out.println("Expected same game from the pool: true, Actual: " + (pool.acquire() == pooled) + ".");
+      System.out.println("Expected numCoveredSquares after release: 16, Actual: " + pooled.numCoveredSquares() + ".");
+      System.out.println("Expected mines after release: 0, Actual: " + pooled.getMineField().numMineLocations() + ".");
+      MineField pooledMines = pooled.getMineField();
+      java.util.SplittableRandom seeded = new java.util.SplittableRandom(1);
+      pooledMines.setNoGuess(true);
+      pooledMines.setRandomGenerator(seeded);
+      pool.release(pooled);
+      pooled = pool.acquire();
+      System.out.println("Expected no-guess and seeded generator after release: false false, Actual: "
+                         + pooled.getMineField().isNoGuess() + " "
+                         + (pooled.getMineField().getRandomGenerator() == seeded) + ".");
+      pool.release(pooled);
+      try {
+         pool.release(pooled);
+         System.out.println("Expected IllegalStateException on a second release, Actual: none.");
+      }
+      catch (IllegalStateException e) {
+         System.out.println("Expected IllegalStateException on a second release, Actual: " + e.getMessage() + ".");
+      }
+      System.out.println("Expected idle games after a second release: 1, Actual: " + pool.numIdle() + ".");
+      
+      //512x512 is bigger than the work arrays VisibleField starts with, 200 mines is below 1 per 1024 locations
+      //(resetEmpty removes them one by one) and 54000 above it (resetEmpty clears whole arrays).
+      checkReset(512, 512, 200, false);
+      checkReset(512, 512, 200, true);
+      checkReset(512, 512, 54000, false);
+      checkReset(512, 512, 54000, true);
+      
+   }
+   
+   
+   /**
+      Undoes and redoes the last move of a journal cycles times, then goes back to the start and to the end, and
+      returns the expected and actual status of every square at the end, as "..., Actual: ...".
+    */
+   private static String undoRedo(MoveJournal journal, int cycles){
+
+      MoveJournal.Player player = journal.player();
+      player.seek(journal.size());
+      String expected = statuses(player.getField());
+      try {
+         for (int i = 0; i < cycles; i++){
+            player.undo();
+            player.redo();
+         }
+         player.seek(0);
+         player.seek(journal.size());
+      }
+      catch (RuntimeException e){
+         return expected + ", Actual: " + e;
+      }
+      return expected + ", Actual: " + statuses(player.getField());
+   }
+
+
+   /**
+      The status of every square of a game, row by row.
+    */
+   private static String statuses(VisibleField field){
+
+      StringBuilder text = new StringBuilder();
+      for (int row = 0; row < field.getMineField().numRows(); row++){
+         for (int col = 0; col < field.getMineField().numCols(); col++){
+            text.append(field.getStatus(row, col)).append(' ');
+         }
+      }
+      return text.toString().trim();
+   }
+
+
+   /**
+      Plays a game on a numRows x numCols board with numMines mines, partway (a dozen squares next to mines opened,
+      scattered over the board, and some guesses), then loses it if lose is true, then resets it, and compares the whole board with a new game: every square
+      COVERED, no mine left on the minefield (and no adjacent counts), the counters of a new game, and exactly the
+      squares that were not COVERED reported as changed.
+    */
+   private static void checkReset(int numRows, int numCols, int numMines, boolean lose){
+      
+      MineField mineField = new MineField(numRows, numCols, numMines);
+      VisibleField field = new VisibleField(mineField);
+      java.util.SplittableRandom random = new java.util.SplittableRandom(numMines);
+      mineField.populateMineField(numRows / 2, numCols / 2, false, numMines);
+      for (int opened = 0, tries = 0; opened < 12 && tries < 1000000; tries++){
+         int row = random.nextInt(numRows);
+         int col = random.nextInt(numCols);
+         if (field.getStatus(row, col) == VisibleField.COVERED && !mineField.hasMine(row, col)
+             && mineField.numAdjacentMines(row, col) > 0){   //no flood fill, which would win a sparse game
+            field.uncover(row, col);
+            opened++;
+            field.cycleGuess(random.nextInt(numRows), random.nextInt(numCols));
+         }
+      }
+      if (lose){
+         int mine = mineField.getMineLocation(0);
+         field.uncover(mine / numCols, mine % numCols);
+      }
+      java.util.BitSet played = new java.util.BitSet();
+      for (int cell = 0; cell < numRows * numCols; cell++){
+         if (field.getStatus(cell / numCols, cell % numCols) != VisibleField.COVERED){
+            played.set(cell);
+         }
+      }
+      field.clearChangedCells();
+      field.resetGameDisplay();
+      
+      int wrongSquares = 0;
+      java.util.BitSet changed = new java.util.BitSet();
+      for (int cell = 0; cell < numRows * numCols; cell++){
+         int row = cell / numCols;
+         int col = cell % numCols;
+         if (field.getStatus(row, col) != VisibleField.COVERED || mineField.hasMine(row, col)
+             || mineField.numAdjacentMines(row, col) != 0){
+            wrongSquares++;
+         }
+      }
+      for (int cell = field.nextChangedCell(0); cell >= 0; cell = field.nextChangedCell(cell + 1)){
+         changed.set(cell);
+      }
+      String game = numRows + "x" + numCols + "/" + numMines + (lose ? " lost" : " partway");
+      System.out.println("Reset of " + game + ", " + played.cardinality() + " squares played:");
+      System.out.println("Expected squares not as new: 0, Actual: " + wrongSquares + ".");
+      System.out.println("Expected changed squares = squares played: true, Actual: " + changed.equals(played) + ".");
+      System.out.println("Expected numCoveredSquares, numMinesLeft, isGameOver, mines: " + numRows * numCols + " "
+                         + numMines + " false 0, Actual: " + field.numCoveredSquares() + " " + field.numMinesLeft()
+                         + " " + field.isGameOver() + " " + mineField.numMineLocations() + ".");
    }
 
 
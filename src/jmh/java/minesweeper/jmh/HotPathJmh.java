@@ -0,0 +1,111 @@
+package minesweeper.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   HotPathJmh -- the HotPathBenchmark benchmarks, run by JMH: every benchmark on every board size (@Param) is
+   measured in forked JVMs of its own.
+      call    the benchmarks that can just repeat their call (populate, adjacent, cycleGuess), chosen by @Param call
+      move    the ones that play a move on a game set up again, untimed, before each call (uncover, reset, sweeps),
+              chosen by @Param move.  On the smallest boards a move takes about as long as JMH's per-invocation
+              setup, so its numbers there are only good for comparing runs with each other.
+
+   The benchmarks are defined by HotPathBenchmark.newCase.  JMH doesn't allow benchmarks in the default package, and
+   classes in a package can't name the game's classes (which are all in the default package), so the cases are made
+   by reflection, once per trial, and used through LongSupplier and Runnable.  Each fork only ever sees one Case
+   class, so those calls are inlined like direct ones.
+
+   To build and run it (the results can be saved with -rf json -rff results.json):
+      mvn -P jmh package
+      java -jar target/benchmarks.jar [-p board=16x30,256x256] [-p call=cycleGuess] [-p move=uncover/expert]
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g"})
+public class HotPathJmh {
+
+   @State(Scope.Thread)
+   public static class Calls {
+
+      @Param({"16x30", "9x9", "64x64", "256x256", "1024x1024", "4096x4096"})
+      public String board;
+
+      @Param({"populate/5%", "populate/12%", "populate/expert", "adjacent/interior", "adjacent/edge",
+              "adjacent/corner", "cycleGuess"})
+      public String call;
+
+      private LongSupplier op;
+
+      @Setup(Level.Trial)
+      public void create() throws ReflectiveOperationException {
+         op = (LongSupplier) newCase(call, board);
+      }
+   }
+
+
+   @State(Scope.Thread)
+   public static class Moves {
+
+      @Param({"16x30", "9x9", "64x64", "256x256", "1024x1024", "4096x4096"})
+      public String board;
+
+      @Param({"uncover/empty", "uncover/sparse", "uncover/expert", "reset", "lossSweep", "winSweep"})
+      public String move;
+
+      private LongSupplier op;
+      private Runnable setup;
+
+      @Setup(Level.Trial)
+      public void create() throws ReflectiveOperationException {
+         Object game = newCase(move, board);
+         op = (LongSupplier) game;
+         setup = (Runnable) game;
+      }
+
+      @Setup(Level.Invocation)
+      public void prepare() {
+         setup.run();
+      }
+   }
+
+
+   @Benchmark
+   public long call(Calls calls) {
+      return calls.op.getAsLong();
+   }
+
+
+   @Benchmark
+   public long move(Moves moves) {
+      return moves.op.getAsLong();
+   }
+
+
+   /**
+      HotPathBenchmark.newCase(name, numRows, numCols), for a board given as "<numRows>x<numCols>".
+    */
+   private static Object newCase(String name, String board) throws ReflectiveOperationException {
+      int x = board.indexOf('x');
+      int numRows = Integer.parseInt(board.substring(0, x));
+      int numCols = Integer.parseInt(board.substring(x + 1));
+      return Class.forName("HotPathBenchmark").getMethod("newCase", String.class, int.class, int.class)
+                  .invoke(null, name, numRows, numCols);
+   }
+
+}